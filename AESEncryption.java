@@ -0,0 +1,222 @@
+package MarvellousPackerUnpacker;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/////////////////////////////////////////////////////////////////////////
+//
+//  Class :         AESEncryption
+//  Description:    AES-128 in counter mode through javax.crypto, where
+//                  HotSpot uses the AES-NI (or ARMv8 AES) intrinsics.
+//                  The 128-bit key is taken from SHA-256 of the two
+//                  integer keys. The counter block is the entry nonce
+//                  followed by the 64-bit index of the 16-byte block,
+//                  so any 8-byte aligned offset can be processed on its
+//                  own, like Blowfish CTR. There is no ECB mode, so
+//                  this is a PackCipher but not a BlockCipher.
+//  Author :        Rutik Shivaji Thitame
+//  Date   :        16/09/2025
+//
+/////////////////////////////////////////////////////////////////////////
+
+public class AESEncryption implements PackCipher
+{
+    private static final String TRANSFORMATION = "AES/CTR/NoPadding";
+    private static final byte[] SKIP = new byte[8];     // Discarded half block
+
+    private final SecretKeySpec Key;
+
+    // javax.crypto.Cipher is stateful; one instance per thread
+    private final ThreadLocal<Cipher> Ciphers = ThreadLocal.withInitial(AESEncryption::NewCipher);
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : AESEncryption (Constructor)
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] int a - First encryption key
+    //                    [IN] int b - Second encryption key
+    //  Description     : Derives the AES key from the two integer keys.
+    //  Returns         : None (constructor)
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public AESEncryption(int a, int b)
+    {
+        try
+        {
+            MessageDigest Digest = MessageDigest.getInstance("SHA-256");
+            Digest.update("MarvellousPacker-AES".getBytes(StandardCharsets.US_ASCII));
+            Digest.update(ByteBuffer.allocate(8).putInt(a).putInt(b).array());
+
+            this.Key = new SecretKeySpec(Arrays.copyOf(Digest.digest(), 16), "AES");
+        }
+        catch (GeneralSecurityException eobj)
+        {
+            throw new IllegalStateException("AES is not available", eobj);
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : AlgorithmId
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : None
+    //  Description     : Identifier recorded in entry headers.
+    //  Returns         : int - PackCipher.ALGORITHM_AES
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    @Override
+    public int AlgorithmId()
+    {
+        return ALGORITHM_AES;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : CryptCounter
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN OUT] byte[] data - Bytes to encrypt or decrypt
+    //                    [IN] int offset      - First byte to process
+    //                    [IN] int length      - Number of bytes (multiple of 8)
+    //                    [IN] long nonce      - Per-entry nonce
+    //                    [IN] long counter    - Offset within the entry in
+    //                                           8-byte units
+    //  Description     : Counter mode in place.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    @Override
+    public void CryptCounter(byte[] data, int offset, int length, long nonce, long counter)
+    {
+        CheckLength(length);
+
+        try
+        {
+            Cipher c = Start(nonce, counter);
+            c.doFinal(data, offset, length, data, offset);
+        }
+        catch (GeneralSecurityException eobj)
+        {
+            throw new IllegalStateException(eobj);
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : CryptCounter
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] ByteBuffer src  - Input between position and
+    //                                           limit (multiple of 8)
+    //                    [OUT] ByteBuffer dst - Receives output from its
+    //                                           position on (may be src)
+    //                    [IN] long nonce      - Per-entry nonce
+    //                    [IN] long counter    - Offset within the entry in
+    //                                           8-byte units
+    //  Description     : Buffer variant of counter mode, used for mapped
+    //                    I/O. Positions and limits are left unchanged.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    @Override
+    public void CryptCounter(ByteBuffer src, ByteBuffer dst, long nonce, long counter)
+    {
+        int length = src.remaining();
+
+        CheckLength(length);
+
+        if (dst.remaining() < length)
+        {
+            throw new IllegalArgumentException("Destination buffer too small");
+        }
+
+        try
+        {
+            Cipher c = Start(nonce, counter);
+            c.doFinal(src.duplicate(), dst.duplicate());
+        }
+        catch (GeneralSecurityException eobj)
+        {
+            throw new IllegalStateException(eobj);
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : Start
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] long nonce   - Per-entry nonce
+    //                    [IN] long counter - Offset within the entry in
+    //                                        8-byte units
+    //  Description     : Positions this thread's cipher at the given offset.
+    //                    Odd counters start halfway through a 16-byte
+    //                    block, so the first half of its keystream is
+    //                    consumed and thrown away.
+    //  Returns         : Cipher
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    private Cipher Start(long nonce, long counter) throws GeneralSecurityException
+    {
+        byte[] iv = ByteBuffer.allocate(16).putLong(nonce).putLong(counter >>> 1).array();
+
+        Cipher c = Ciphers.get();
+        c.init(Cipher.ENCRYPT_MODE, Key, new IvParameterSpec(iv));
+
+        if ((counter & 1) != 0)
+        {
+            c.update(SKIP);
+        }
+
+        return c;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : NewCipher
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : None
+    //  Description     : Creates the javax.crypto engine of one thread.
+    //  Returns         : Cipher
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    private static Cipher NewCipher()
+    {
+        try
+        {
+            return Cipher.getInstance(TRANSFORMATION);
+        }
+        catch (GeneralSecurityException eobj)
+        {
+            throw new IllegalStateException("AES is not available", eobj);
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : CheckLength
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] int length - Bytes to process
+    //  Description     : Offsets are counted in 8-byte units, so every call
+    //                    must cover whole units.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    private static void CheckLength(int length)
+    {
+        if ((length & 7) != 0)
+        {
+            throw new IllegalArgumentException("Length must be a multiple of 8 : " + length);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package MarvellousPackerUnpacker;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.management.JMException;
+
+/////////////////////////////////////////////////////////////////////////
+//
+//  Class :         BatchRunner
+//  Description :   Headless entry point. Reads a manifest of pack,
+//                  unpack, verify, merge and rekey jobs (see PackJob
+//                  for the format), runs them on a JobScheduler and
+//                  prints one JSON line per job as it completes,
+//                  followed by a summary line.
+//
+//                      --batch <manifest | ->   "-" streams jobs from
+//                                               standard input
+//                      --threads N              Worker threads shared by
+//                                               all jobs (default: cores)
+//                      --jobs N                 Jobs running at once
+//                                               (default: threads)
+//                      --memory MiB             Cap on the chunk buffers of
+//                                               all jobs together; jobs wait
+//                                               for buffers beyond it
+//                      --jmx                    Publish each running job's
+//                                               metrics, and the buffer
+//                                               pool, over JMX
+//
+//                  A manifest file is checked completely before any job
+//                  starts; from standard input each line is submitted as
+//                  soon as it is read and a bad line is reported as an
+//                  "invalid" record.
+//  Author :        Rutik Shivaji Thitame
+//
+/////////////////////////////////////////////////////////////////////////
+
+public final class BatchRunner
+{
+    public static final int EXIT_OK = 0;         // Every job succeeded
+    public static final int EXIT_FAILED = 1;     // At least one job failed
+    public static final int EXIT_USAGE = 2;      // Bad arguments or manifest
+
+    private static final String USAGE =
+        "Usage : --batch <manifest|-> [--threads N] [--jobs N] [--memory MiB] [--jmx]";
+
+    private BatchRunner()
+    {
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : Run
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] String Args[] -> Command-line arguments
+    //  Description     : Runs every job of the manifest and waits for them.
+    //  Returns         : int - EXIT_OK, EXIT_FAILED or EXIT_USAGE
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public static int Run(String Args[])
+    {
+        String Manifest = null;
+        int iThreads = Runtime.getRuntime().availableProcessors();
+        int iJobs = -1;
+        long Memory = 0;
+        boolean bJmx = false;
+
+        try
+        {
+            for (int i = 0; i < Args.length; i++)
+            {
+                switch (Args[i])
+                {
+                    case "--batch":   Manifest = Value(Args, ++i); break;
+                    case "--threads": iThreads = Integer.parseInt(Value(Args, ++i)); break;
+                    case "--jobs":    iJobs = Integer.parseInt(Value(Args, ++i)); break;
+                    case "--memory":  Memory = Long.parseLong(Value(Args, ++i)) << 20; break;
+                    case "--jmx":     bJmx = true; break;
+                    default:
+                        throw new IllegalArgumentException("Unknown argument : " + Args[i]);
+                }
+            }
+
+            if (Manifest == null)
+            {
+                throw new IllegalArgumentException("--batch is required");
+            }
+        }
+        catch (RuntimeException eobj)
+        {
+            System.err.println(eobj.getMessage());
+            System.err.println(USAGE);
+            return EXIT_USAGE;
+        }
+
+        BufferPool Pool = null;
+
+        if (Memory > 0)
+        {
+            Pool = new BufferPool(Memory);
+
+            if (bJmx)
+            {
+                try
+                {
+                    Pool.Register("batch");
+                }
+                catch (JMException eobj)
+                {
+                    eobj.printStackTrace();
+                }
+            }
+        }
+
+        PrintStream Out = System.out;
+        AtomicInteger Failed = new AtomicInteger();
+        List<CompletableFuture<Void>> Pending = new ArrayList<>();
+        long Start = System.nanoTime();
+
+        try (JobScheduler Scheduler = new JobScheduler(iThreads, (iJobs < 0) ? iThreads : iJobs))
+        {
+            Scheduler.SetPublish(bJmx);
+            Scheduler.SetBufferPool(Pool);
+
+            if (Manifest.equals("-"))
+            {
+                BufferedReader brobj = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+                Set<String> Names = new HashSet<>();
+                String Line;
+                int iLineNo = 0;
+
+                while ((Line = brobj.readLine()) != null)
+                {
+                    iLineNo++;
+
+                    try
+                    {
+                        PackJob Job = Parse(Line, iLineNo, Names);
+
+                        if (Job != null)
+                        {
+                            Pending.add(Submit(Scheduler, Job, Out, Failed));
+                        }
+                    }
+                    catch (IllegalArgumentException eobj)
+                    {
+                        Failed.incrementAndGet();
+                        Print(Out, "{\"line\":" + iLineNo + ",\"status\":\"invalid\",\"message\":"
+                                   + JobResult.Quote(eobj.getMessage()) + "}");
+                    }
+                }
+            }
+            else
+            {
+                List<PackJob> Jobs = new ArrayList<>();
+                Set<String> Names = new HashSet<>();
+                int iLineNo = 0;
+
+                for (String Line : Files.readAllLines(Paths.get(Manifest), StandardCharsets.UTF_8))
+                {
+                    PackJob Job = Parse(Line, ++iLineNo, Names);
+
+                    if (Job != null)
+                    {
+                        Jobs.add(Job);
+                    }
+                }
+
+                for (PackJob Job : Jobs)
+                {
+                    Pending.add(Submit(Scheduler, Job, Out, Failed));
+                }
+            }
+
+            CompletableFuture.allOf(Pending.toArray(new CompletableFuture<?>[0])).join();
+        }
+        catch (IllegalArgumentException | IOException eobj)
+        {
+            System.err.println(eobj.getMessage());
+            return EXIT_USAGE;
+        }
+        finally
+        {
+            if (Pool != null)
+            {
+                try
+                {
+                    Pool.Unregister();
+                }
+                catch (JMException eobj)
+                {
+                    eobj.printStackTrace();
+                }
+            }
+        }
+
+        int iFailed = Failed.get();
+
+        Print(Out, "{\"summary\":true,\"jobs\":" + Pending.size()
+                   + ",\"failed\":" + iFailed
+                   + ",\"millis\":" + (System.nanoTime() - Start) / 1000000 + "}");
+
+        return (iFailed == 0) ? EXIT_OK : EXIT_FAILED;
+    }
+
+    private static String Value(String Args[], int i)
+    {
+        if (i >= Args.length)
+        {
+            throw new IllegalArgumentException("Missing value for " + Args[i - 1]);
+        }
+
+        return Args[i];
+    }
+
+    // Parses a manifest line and rejects a repeated job name
+    private static PackJob Parse(String Line, int iLineNo, Set<String> Names)
+    {
+        PackJob Job = PackJob.Parse(Line, iLineNo);
+
+        if (Job != null && !Names.add(Job.GetName()))
+        {
+            throw new IllegalArgumentException("Manifest line " + iLineNo + " : duplicate job name " + Job.GetName());
+        }
+
+        return Job;
+    }
+
+    private static CompletableFuture<Void> Submit(JobScheduler Scheduler, PackJob Job,
+                                                  PrintStream Out, AtomicInteger Failed)
+    {
+        return Scheduler.Submit(Job).thenAccept(Result ->
+        {
+            if (!Result.IsSuccess())
+            {
+                Failed.incrementAndGet();
+            }
+
+            Print(Out, Result.ToJson());
+        });
+    }
+
+    // Whole lines only, whichever runner thread completes
+    private static void Print(PrintStream Out, String Line)
+    {
+        synchronized (Out)
+        {
+            Out.println(Line);
+            Out.flush();
+        }
+    }
+}
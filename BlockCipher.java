@@ -0,0 +1,79 @@
+package MarvellousPackerUnpacker;
+
+import java.nio.ByteBuffer;
+
+/////////////////////////////////////////////////////////////////////////
+//
+//  Interface :     BlockCipher
+//  Description:    Engine that can also encrypt in ECB mode, which
+//                  entries without FLAG_CTR use. Only Blowfish does;
+//                  other engines implement PackCipher alone and are
+//                  always used in counter mode (PackFormat.ValidFlags
+//                  rejects anything else).
+//  Author :        Rutik Shivaji Thitame
+//  Date   :        16/09/2025
+//
+/////////////////////////////////////////////////////////////////////////
+
+public interface BlockCipher extends PackCipher
+{
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : EncryptBlocks
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN OUT] byte[] data - Plaintext, replaced by ciphertext
+    //                    [IN] int offset      - First byte to encrypt
+    //                    [IN] int length      - Number of bytes (multiple of 8)
+    //  Description     : ECB encryption in place.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    void EncryptBlocks(byte[] data, int offset, int length);
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : DecryptBlocks
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN OUT] byte[] data - Ciphertext, replaced by plaintext
+    //                    [IN] int offset      - First byte to decrypt
+    //                    [IN] int length      - Number of bytes (multiple of 8)
+    //  Description     : ECB decryption in place.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    void DecryptBlocks(byte[] data, int offset, int length);
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : EncryptBuffer
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] ByteBuffer src  - Plaintext between position and
+    //                                           limit (multiple of 8)
+    //                    [OUT] ByteBuffer dst - Receives ciphertext from its
+    //                                           position on (may be src)
+    //  Description     : ECB encryption between buffers. Positions and
+    //                    limits are left unchanged.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    void EncryptBuffer(ByteBuffer src, ByteBuffer dst);
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : DecryptBuffer
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] ByteBuffer src  - Ciphertext between position and
+    //                                           limit (multiple of 8)
+    //                    [OUT] ByteBuffer dst - Receives plaintext from its
+    //                                           position on (may be src)
+    //  Description     : ECB decryption between buffers. Positions and
+    //                    limits are left unchanged.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    void DecryptBuffer(ByteBuffer src, ByteBuffer dst);
+}
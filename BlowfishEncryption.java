@@ -1,21 +1,27 @@
 package MarvellousPackerUnpacker;
 
+import java.nio.ByteBuffer;
+
 /////////////////////////////////////////////////////////////////////////
 //
 //  Class :         BlowfishEncryption
 //  Description:    Simplified implementation of the Blowfish encryption 
 //                  algorithm. Provides key initialization, block-level 
 //                  encryption/decryption, and data-level encryption/
-//                  decryption for 8-byte aligned input.
+//                  decryption for 8-byte aligned input. Bulk methods
+//                  work in place or into caller supplied arrays and
+//                  buffers so that no garbage is created per block.
+//                  Algorithm id 0, the default for new packs and the
+//                  only one legacy packs know.
 //  Author :        Rutik Shivaji Thitame
 //  Date   :        16/09/2025
 //
 /////////////////////////////////////////////////////////////////////////
 
-public class BlowfishEncryption 
+public class BlowfishEncryption implements BlockCipher
 {
     private int[] P;           // P-array (18 entries)
-    private int[][] S;         // S-boxes (4 * 256 entries)
+    private int[] S;           // S-boxes (4 * 256 entries, flattened)
     private int key1, key2;    // Two integer keys for simplicity
 
     /////////////////////////////////////////////////////////////////////////////
@@ -32,7 +38,7 @@ public class BlowfishEncryption
     public BlowfishEncryption(int a, int b) 
     {
         this.P = new int[18];
-        this.S = new int[4][256];
+        this.S = new int[4 * 256];
         this.key1 = a;
         this.key2 = b;
 
@@ -61,7 +67,7 @@ public class BlowfishEncryption
         for (int i = 0; i < 4; i++) {
             for (int j = 0; j < 256; j++) 
             {
-                S[i][j] = key2 + j;
+                S[(i << 8) | j] = key2 + j;
             }
         }
     }
@@ -84,7 +90,7 @@ public class BlowfishEncryption
         int c = (x >> 8) & 0xFF;
         int d = x & 0xFF;
 
-        return ((S[0][a] + S[1][b]) ^ S[2][c]) + S[3][d];
+        return ((S[a] + S[256 | b]) ^ S[512 | c]) + S[768 | d];
     }
 
     /////////////////////////////////////////////////////////////////////////////
@@ -153,6 +159,21 @@ public class BlowfishEncryption
         return new int[]{L, R};
     }
 
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : AlgorithmId
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : None
+    //  Description     : Identifier recorded in entry headers.
+    //  Returns         : int - PackCipher.ALGORITHM_BLOWFISH
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public int AlgorithmId()
+    {
+        return ALGORITHM_BLOWFISH;
+    }
+
     /////////////////////////////////////////////////////////////////////////////
     //
     //  Function Name   : EncryptData
@@ -167,26 +188,8 @@ public class BlowfishEncryption
     {
         byte[] output = new byte[input.length];
 
-        for (int i = 0; i < input.length; i += 8) 
-        {
-            int L = (input[i] & 0xFF) << 24 | (input[i + 1] & 0xFF) << 16 |
-                    (input[i + 2] & 0xFF) << 8 | (input[i + 3] & 0xFF);
-            int R = (input[i + 4] & 0xFF) << 24 | (input[i + 5] & 0xFF) << 16 |
-                    (input[i + 6] & 0xFF) << 8 | (input[i + 7] & 0xFF);
-
-            int[] result = EncryptBlock(L, R);
-            L = result[0];
-            R = result[1];
-
-            output[i]     = (byte) (L >> 24);
-            output[i + 1] = (byte) (L >> 16);
-            output[i + 2] = (byte) (L >> 8);
-            output[i + 3] = (byte) (L);
-            output[i + 4] = (byte) (R >> 24);
-            output[i + 5] = (byte) (R >> 16);
-            output[i + 6] = (byte) (R >> 8);
-            output[i + 7] = (byte) (R);
-        }
+        EncryptBlocks(input, 0, output, 0, input.length);
+
         return output;
     }
 
@@ -204,26 +207,442 @@ public class BlowfishEncryption
     {
         byte[] output = new byte[input.length];
 
-        for (int i = 0; i < input.length; i += 8) 
+        DecryptBlocks(input, 0, output, 0, input.length);
+
+        return output;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : EncryptBlocks
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN OUT] byte[] data - Plaintext, replaced by ciphertext
+    //                    [IN] int offset      - First byte to encrypt
+    //                    [IN] int length      - Number of bytes (multiple of 8)
+    //  Description     : Encrypts a run of 8-byte blocks in place.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void EncryptBlocks(byte[] data, int offset, int length)
+    {
+        EncryptBlocks(data, offset, data, offset, length);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : DecryptBlocks
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN OUT] byte[] data - Ciphertext, replaced by plaintext
+    //                    [IN] int offset      - First byte to decrypt
+    //                    [IN] int length      - Number of bytes (multiple of 8)
+    //  Description     : Decrypts a run of 8-byte blocks in place.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void DecryptBlocks(byte[] data, int offset, int length)
+    {
+        DecryptBlocks(data, offset, data, offset, length);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : EncryptBlocks
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] byte[] src     - Plaintext array
+    //                    [IN] int srcOffset  - First plaintext byte
+    //                    [OUT] byte[] dst    - Ciphertext array (may be src)
+    //                    [IN] int dstOffset  - First ciphertext byte
+    //                    [IN] int length     - Number of bytes (multiple of 8)
+    //  Description     : Encrypts a run of 8-byte blocks into a caller supplied
+    //                    array. Rounds run on locals against the flattened
+    //                    S-box table, so nothing is allocated per block.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void EncryptBlocks(byte[] src, int srcOffset, byte[] dst, int dstOffset, int length)
+    {
+        CheckLength(length);
+
+        final int[] p = P;
+        final int[] s = S;
+
+        for (int i = 0; i < length; i += 8)
+        {
+            int si = srcOffset + i;
+            int L = (src[si] & 0xFF) << 24 | (src[si + 1] & 0xFF) << 16 |
+                    (src[si + 2] & 0xFF) << 8 | (src[si + 3] & 0xFF);
+            int R = (src[si + 4] & 0xFF) << 24 | (src[si + 5] & 0xFF) << 16 |
+                    (src[si + 6] & 0xFF) << 8 | (src[si + 7] & 0xFF);
+
+            for (int r = 0; r < 16; r++)
+            {
+                L ^= p[r];
+                R ^= ((s[L >>> 24] + s[256 | ((L >>> 16) & 0xFF)]) ^
+                       s[512 | ((L >>> 8) & 0xFF)]) + s[768 | (L & 0xFF)];
+
+                int temp = L;
+                L = R;
+                R = temp;
+            }
+
+            int temp = L;
+            L = R ^ p[17];
+            R = temp ^ p[16];
+
+            int di = dstOffset + i;
+            dst[di]     = (byte) (L >> 24);
+            dst[di + 1] = (byte) (L >> 16);
+            dst[di + 2] = (byte) (L >> 8);
+            dst[di + 3] = (byte) (L);
+            dst[di + 4] = (byte) (R >> 24);
+            dst[di + 5] = (byte) (R >> 16);
+            dst[di + 6] = (byte) (R >> 8);
+            dst[di + 7] = (byte) (R);
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : DecryptBlocks
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] byte[] src     - Ciphertext array
+    //                    [IN] int srcOffset  - First ciphertext byte
+    //                    [OUT] byte[] dst    - Plaintext array (may be src)
+    //                    [IN] int dstOffset  - First plaintext byte
+    //                    [IN] int length     - Number of bytes (multiple of 8)
+    //  Description     : Decrypts a run of 8-byte blocks into a caller supplied
+    //                    array without any per-block allocation.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void DecryptBlocks(byte[] src, int srcOffset, byte[] dst, int dstOffset, int length)
+    {
+        CheckLength(length);
+
+        final int[] p = P;
+        final int[] s = S;
+
+        for (int i = 0; i < length; i += 8)
         {
-            int L = (input[i] & 0xFF) << 24 | (input[i + 1] & 0xFF) << 16 |
-                    (input[i + 2] & 0xFF) << 8 | (input[i + 3] & 0xFF);
-            int R = (input[i + 4] & 0xFF) << 24 | (input[i + 5] & 0xFF) << 16 |
-                    (input[i + 6] & 0xFF) << 8 | (input[i + 7] & 0xFF);
-
-            int[] result = DecryptBlock(L, R);
-            L = result[0];
-            R = result[1];
-
-            output[i]     = (byte) (L >> 24);
-            output[i + 1] = (byte) (L >> 16);
-            output[i + 2] = (byte) (L >> 8);
-            output[i + 3] = (byte) (L);
-            output[i + 4] = (byte) (R >> 24);
-            output[i + 5] = (byte) (R >> 16);
-            output[i + 6] = (byte) (R >> 8);
-            output[i + 7] = (byte) (R);
+            int si = srcOffset + i;
+            int L = (src[si] & 0xFF) << 24 | (src[si + 1] & 0xFF) << 16 |
+                    (src[si + 2] & 0xFF) << 8 | (src[si + 3] & 0xFF);
+            int R = (src[si + 4] & 0xFF) << 24 | (src[si + 5] & 0xFF) << 16 |
+                    (src[si + 6] & 0xFF) << 8 | (src[si + 7] & 0xFF);
+
+            for (int r = 17; r > 1; r--)
+            {
+                L ^= p[r];
+                R ^= ((s[L >>> 24] + s[256 | ((L >>> 16) & 0xFF)]) ^
+                       s[512 | ((L >>> 8) & 0xFF)]) + s[768 | (L & 0xFF)];
+
+                int temp = L;
+                L = R;
+                R = temp;
+            }
+
+            int temp = L;
+            L = R ^ p[0];
+            R = temp ^ p[1];
+
+            int di = dstOffset + i;
+            dst[di]     = (byte) (L >> 24);
+            dst[di + 1] = (byte) (L >> 16);
+            dst[di + 2] = (byte) (L >> 8);
+            dst[di + 3] = (byte) (L);
+            dst[di + 4] = (byte) (R >> 24);
+            dst[di + 5] = (byte) (R >> 16);
+            dst[di + 6] = (byte) (R >> 8);
+            dst[di + 7] = (byte) (R);
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : EncryptBuffer
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN OUT] ByteBuffer buf - Plaintext between position
+    //                                              and limit (multiple of 8)
+    //  Description     : Encrypts the remaining bytes of a heap, direct or
+    //                    mapped buffer in place. Position and limit are left
+    //                    unchanged.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void EncryptBuffer(ByteBuffer buf)
+    {
+        EncryptBuffer(buf, buf);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : DecryptBuffer
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN OUT] ByteBuffer buf - Ciphertext between position
+    //                                              and limit (multiple of 8)
+    //  Description     : Decrypts the remaining bytes of a heap, direct or
+    //                    mapped buffer in place. Position and limit are left
+    //                    unchanged.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void DecryptBuffer(ByteBuffer buf)
+    {
+        DecryptBuffer(buf, buf);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : EncryptBuffer
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] ByteBuffer src  - Plaintext between position and
+    //                                           limit (multiple of 8)
+    //                    [OUT] ByteBuffer dst - Receives ciphertext from its
+    //                                           position on (may be src)
+    //  Description     : Encrypts from one buffer into another, e.g. from a
+    //                    read-only mapping straight into a writable one.
+    //                    Both buffers must use the default big-endian
+    //                    order. Positions and limits are left unchanged.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void EncryptBuffer(ByteBuffer src, ByteBuffer dst)
+    {
+        int length = src.remaining();
+
+        CheckLength(length);
+
+        if (dst.remaining() < length)
+        {
+            throw new IllegalArgumentException("Destination buffer too small");
+        }
+
+        if (src.hasArray() && dst.hasArray())
+        {
+            EncryptBlocks(src.array(), src.arrayOffset() + src.position(),
+                          dst.array(), dst.arrayOffset() + dst.position(), length);
+            return;
+        }
+
+        final int[] p = P;
+        final int[] s = S;
+        int si = src.position();
+        int di = dst.position();
+
+        for (int i = 0; i < length; i += 8)
+        {
+            int L = src.getInt(si + i);
+            int R = src.getInt(si + i + 4);
+
+            for (int r = 0; r < 16; r++)
+            {
+                L ^= p[r];
+                R ^= ((s[L >>> 24] + s[256 | ((L >>> 16) & 0xFF)]) ^
+                       s[512 | ((L >>> 8) & 0xFF)]) + s[768 | (L & 0xFF)];
+
+                int temp = L;
+                L = R;
+                R = temp;
+            }
+
+            dst.putInt(di + i, R ^ p[17]);
+            dst.putInt(di + i + 4, L ^ p[16]);
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : DecryptBuffer
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] ByteBuffer src  - Ciphertext between position and
+    //                                           limit (multiple of 8)
+    //                    [OUT] ByteBuffer dst - Receives plaintext from its
+    //                                           position on (may be src)
+    //  Description     : Decrypts from one buffer into another, e.g. from a
+    //                    read-only mapping straight into a writable one.
+    //                    Both buffers must use the default big-endian
+    //                    order. Positions and limits are left unchanged.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void DecryptBuffer(ByteBuffer src, ByteBuffer dst)
+    {
+        int length = src.remaining();
+
+        CheckLength(length);
+
+        if (dst.remaining() < length)
+        {
+            throw new IllegalArgumentException("Destination buffer too small");
+        }
+
+        if (src.hasArray() && dst.hasArray())
+        {
+            DecryptBlocks(src.array(), src.arrayOffset() + src.position(),
+                          dst.array(), dst.arrayOffset() + dst.position(), length);
+            return;
+        }
+
+        final int[] p = P;
+        final int[] s = S;
+        int si = src.position();
+        int di = dst.position();
+
+        for (int i = 0; i < length; i += 8)
+        {
+            int L = src.getInt(si + i);
+            int R = src.getInt(si + i + 4);
+
+            for (int r = 17; r > 1; r--)
+            {
+                L ^= p[r];
+                R ^= ((s[L >>> 24] + s[256 | ((L >>> 16) & 0xFF)]) ^
+                       s[512 | ((L >>> 8) & 0xFF)]) + s[768 | (L & 0xFF)];
+
+                int temp = L;
+                L = R;
+                R = temp;
+            }
+
+            dst.putInt(di + i, R ^ p[0]);
+            dst.putInt(di + i + 4, L ^ p[1]);
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : CryptCounter
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN OUT] byte[] data - Bytes to encrypt or decrypt
+    //                    [IN] int offset      - First byte to process
+    //                    [IN] int length      - Number of bytes (multiple of 8)
+    //                    [IN] long nonce      - Per-entry nonce
+    //                    [IN] long counter    - Index of the first block
+    //  Description     : Counter (CTR) mode. Block i of the run is XORed with
+    //                    EncryptBlock(nonce + counter + i). Encryption and
+    //                    decryption are the same operation, and any block
+    //                    can be processed without the ones before it.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void CryptCounter(byte[] data, int offset, int length, long nonce, long counter)
+    {
+        CheckLength(length);
+
+        final int[] p = P;
+        final int[] s = S;
+        long block = nonce + counter;
+
+        for (int i = offset, end = offset + length; i < end; i += 8, block++)
+        {
+            int L = (int) (block >>> 32);
+            int R = (int) block;
+
+            for (int r = 0; r < 16; r++)
+            {
+                L ^= p[r];
+                R ^= ((s[L >>> 24] + s[256 | ((L >>> 16) & 0xFF)]) ^
+                       s[512 | ((L >>> 8) & 0xFF)]) + s[768 | (L & 0xFF)];
+
+                int temp = L;
+                L = R;
+                R = temp;
+            }
+
+            int temp = L;
+            L = R ^ p[17];
+            R = temp ^ p[16];
+
+            data[i]     ^= (byte) (L >> 24);
+            data[i + 1] ^= (byte) (L >> 16);
+            data[i + 2] ^= (byte) (L >> 8);
+            data[i + 3] ^= (byte) (L);
+            data[i + 4] ^= (byte) (R >> 24);
+            data[i + 5] ^= (byte) (R >> 16);
+            data[i + 6] ^= (byte) (R >> 8);
+            data[i + 7] ^= (byte) (R);
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : CryptCounter
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] ByteBuffer src  - Input between position and
+    //                                           limit (multiple of 8)
+    //                    [OUT] ByteBuffer dst - Receives output from its
+    //                                           position on (may be src)
+    //                    [IN] long nonce      - Per-entry nonce
+    //                    [IN] long counter    - Index of the first block
+    //  Description     : Buffer variant of counter mode, used for mapped
+    //                    I/O. Both buffers must use the default big-endian
+    //                    order. Positions and limits are left unchanged.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void CryptCounter(ByteBuffer src, ByteBuffer dst, long nonce, long counter)
+    {
+        int length = src.remaining();
+
+        CheckLength(length);
+
+        if (dst.remaining() < length)
+        {
+            throw new IllegalArgumentException("Destination buffer too small");
+        }
+
+        final int[] p = P;
+        final int[] s = S;
+        int si = src.position();
+        int di = dst.position();
+        long block = nonce + counter;
+
+        for (int i = 0; i < length; i += 8, block++)
+        {
+            int L = (int) (block >>> 32);
+            int R = (int) block;
+
+            for (int r = 0; r < 16; r++)
+            {
+                L ^= p[r];
+                R ^= ((s[L >>> 24] + s[256 | ((L >>> 16) & 0xFF)]) ^
+                       s[512 | ((L >>> 8) & 0xFF)]) + s[768 | (L & 0xFF)];
+
+                int temp = L;
+                L = R;
+                R = temp;
+            }
+
+            dst.putInt(di + i, src.getInt(si + i) ^ R ^ p[17]);
+            dst.putInt(di + i + 4, src.getInt(si + i + 4) ^ L ^ p[16]);
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : CheckLength
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] int length - Number of bytes to process
+    //  Description     : Rejects runs that are not whole 8-byte blocks.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    private static void CheckLength(int length)
+    {
+        if ((length & 7) != 0)
+        {
+            throw new IllegalArgumentException("Length must be a multiple of 8 : " + length);
         }
-        return output;
     }
 }
@@ -0,0 +1,317 @@
+package MarvellousPackerUnpacker;
+
+import java.io.InterruptedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.*;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/////////////////////////////////////////////////////////////////////////
+//
+//  Class :         BufferPool
+//  Description :   Direct chunk buffers shared by any number of packer
+//                  and unpacker jobs, under one cap on the bytes they
+//                  occupy. The memory is allocated as slabs of up to
+//                  SLAB_SIZE bytes, only when the leases no longer fit
+//                  in the existing ones, and is kept for the life of the
+//                  pool: nothing is dropped for the collector to free.
+//                  Acquire hands out a slice of whole pages from a slab
+//                  and otherwise blocks until enough pages are released,
+//                  so a busy JVM slows down instead of growing. Every
+//                  thread holds at most one buffer at a time, which
+//                  keeps waiting free of deadlocks: once the other
+//                  leases return, any size fits in the first slab.
+//  Author :        Rutik Shivaji Thitame
+//
+/////////////////////////////////////////////////////////////////////////
+
+public class BufferPool implements BufferPoolMBean
+{
+    static final int SLAB_SIZE = PackFormat.MAX_CHUNK_SIZE;       // Largest slab, and lease
+    static final int PAGE_SIZE = 64 << 10;                        // Unit of a lease in a slab
+
+    // One direct allocation and the pages of it now leased
+    private static final class Slab
+    {
+        final ByteBuffer Memory;
+        final BitSet Used = new BitSet();
+
+        Slab(int iBytes)
+        {
+            Memory = ByteBuffer.allocateDirect(iBytes);
+        }
+
+        // First page of a free run that holds Size bytes, or -1
+        int Find(int Size, int iPages)
+        {
+            for (int iFirst = 0; ; )
+            {
+                iFirst = Used.nextClearBit(iFirst);
+
+                if ((long) iFirst * PAGE_SIZE + Size > Memory.capacity())
+                {
+                    return -1;
+                }
+
+                int iNext = Used.nextSetBit(iFirst);
+
+                if (iNext < 0 || iNext >= iFirst + iPages)
+                {
+                    return iFirst;
+                }
+
+                iFirst = iNext;
+            }
+        }
+    }
+
+    // Where a leased slice came from
+    private static final class Lease
+    {
+        final Slab Owner;
+        final int iFirst;
+        final int iPages;
+
+        Lease(Slab Owner, int iFirst, int iPages)
+        {
+            this.Owner = Owner;
+            this.iFirst = iFirst;
+            this.iPages = iPages;
+        }
+    }
+
+    private final long Capacity;                                  // Cap in bytes
+    private final List<Slab> Slabs = new ArrayList<>();
+    private final Map<ByteBuffer, Lease> Leases = new IdentityHashMap<>();
+    private long Allocated = 0;                                   // Bytes in Slabs
+    private long Leased = 0;
+    private int Waiting = 0;
+    private long Waits = 0;
+    private long WaitNanos = 0;
+    private ObjectName Name = null;                               // Set while registered
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : BufferPool (Constructor)
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] long Capacity -> Bytes of direct memory the
+    //                                          pool may own (>= 1)
+    //  Description     : Creates an empty pool; slabs are allocated on
+    //                    demand.
+    //  Returns         : None
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public BufferPool(long Capacity)
+    {
+        if (Capacity < 1)
+        {
+            throw new IllegalArgumentException("Invalid pool capacity : " + Capacity);
+        }
+
+        this.Capacity = Capacity;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : Acquire
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] int Size -> Buffer capacity in bytes, up to
+    //                                     the pool capacity and SLAB_SIZE
+    //  Description     : Leases a direct buffer of exactly Size bytes,
+    //                    sliced from a slab, waiting while no slab has
+    //                    room and the cap allows no new one. Must be
+    //                    paired with Release.
+    //  Returns         : ByteBuffer
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public synchronized ByteBuffer Acquire(int Size) throws InterruptedIOException
+    {
+        if (Size < 1 || Size > Capacity || Size > SLAB_SIZE)
+        {
+            throw new IllegalArgumentException("Buffer of " + Size + " bytes exceeds pool capacity "
+                                               + Math.min(Capacity, SLAB_SIZE));
+        }
+
+        int iPages = (int) ((Size + (long) PAGE_SIZE - 1) / PAGE_SIZE);
+        long Since = 0;
+
+        try
+        {
+            while (true)
+            {
+                for (Slab Each : Slabs)
+                {
+                    int iFirst = Each.Find(Size, iPages);
+
+                    if (iFirst >= 0)
+                    {
+                        return Lease(Each, iFirst, iPages, Size);
+                    }
+                }
+
+                long Room = Math.min(SLAB_SIZE, Capacity - Allocated);
+
+                if (Room >= Size)
+                {
+                    Slab Added = new Slab((int) Room);
+
+                    Slabs.add(Added);
+                    Allocated += Room;
+
+                    return Lease(Added, 0, iPages, Size);
+                }
+
+                if (Since == 0)
+                {
+                    Since = System.nanoTime();
+                    Waits++;
+                }
+
+                Waiting++;
+
+                try
+                {
+                    wait();
+                }
+                finally
+                {
+                    Waiting--;
+                }
+            }
+        }
+        catch (InterruptedException eobj)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for a buffer");
+        }
+        finally
+        {
+            if (Since != 0)
+            {
+                WaitNanos += System.nanoTime() - Since;
+            }
+        }
+    }
+
+    // Marks the pages used and slices them out
+    private ByteBuffer Lease(Slab Owner, int iFirst, int iPages, int Size)
+    {
+        Owner.Used.set(iFirst, iFirst + iPages);
+
+        ByteBuffer Buffer = Owner.Memory.slice(iFirst * PAGE_SIZE, Size);
+
+        Leases.put(Buffer, new Lease(Owner, iFirst, iPages));
+        Leased += Size;
+
+        return Buffer;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : Release
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] ByteBuffer Buffer -> Buffer from Acquire
+    //  Description     : Returns the buffer's pages for reuse and wakes
+    //                    waiters.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public synchronized void Release(ByteBuffer Buffer)
+    {
+        Lease Held = Leases.remove(Buffer);
+
+        if (Held == null)
+        {
+            throw new IllegalArgumentException("Buffer was not leased from this pool");
+        }
+
+        Held.Owner.Used.clear(Held.iFirst, Held.iFirst + Held.iPages);
+        Leased -= Buffer.capacity();
+        notifyAll();
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : Register
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] String Label -> Distinguishes several pools
+    //  Description     : Publishes the occupancy on the platform MBean
+    //                    server as
+    //                    MarvellousPackerUnpacker:type=BufferPool,name=Label
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public synchronized void Register(String Label) throws JMException
+    {
+        if (Name != null)
+        {
+            throw new IllegalStateException("Already registered as " + Name);
+        }
+
+        ObjectName Object = new ObjectName("MarvellousPackerUnpacker:type=BufferPool,name="
+                                           + ObjectName.quote(Label));
+
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, Object);
+        Name = Object;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : Unregister
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : None
+    //  Description     : Removes the MBean published by Register, if any.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public synchronized void Unregister() throws JMException
+    {
+        if (Name != null)
+        {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(Name);
+            Name = null;
+        }
+    }
+
+    @Override
+    public long getCapacityBytes()
+    {
+        return Capacity;
+    }
+
+    @Override
+    public synchronized long getAllocatedBytes()
+    {
+        return Allocated;
+    }
+
+    @Override
+    public synchronized long getLeasedBytes()
+    {
+        return Leased;
+    }
+
+    @Override
+    public synchronized int getWaiting()
+    {
+        return Waiting;
+    }
+
+    @Override
+    public synchronized long getWaits()
+    {
+        return Waits;
+    }
+
+    @Override
+    public synchronized long getWaitNanos()
+    {
+        return WaitNanos;
+    }
+}
@@ -0,0 +1,21 @@
+package MarvellousPackerUnpacker;
+
+/////////////////////////////////////////////////////////////////////////
+//
+//  Interface :     BufferPoolMBean
+//  Description:    JMX view of BufferPool. Attribute getters start in
+//                  lower case, as in PackMetricsMBean.
+//  Author :        Rutik Shivaji Thitame
+//  Date   :        16/09/2025
+//
+/////////////////////////////////////////////////////////////////////////
+
+public interface BufferPoolMBean
+{
+    long getCapacityBytes();         // Cap on direct memory
+    long getAllocatedBytes();        // Owned by the pool: slabs, leased or idle
+    long getLeasedBytes();           // Held by running jobs right now
+    int getWaiting();                // Threads blocked in Acquire
+    long getWaits();                 // Acquires that had to block
+    long getWaitNanos();             // Time spent blocked, all threads
+}
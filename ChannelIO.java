@@ -0,0 +1,195 @@
+package MarvellousPackerUnpacker;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/////////////////////////////////////////////////////////////////////////
+//
+//  Class :         ChannelIO
+//  Description :   Small helpers around FileChannel that loop until a
+//                  buffer is completely filled or drained, since a
+//                  single read/write call may transfer fewer bytes.
+//  Author :        Rutik Shivaji Thitame
+//
+/////////////////////////////////////////////////////////////////////////
+
+final class ChannelIO
+{
+    private ChannelIO()
+    {
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : ReadFully
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] FileChannel ch -> Channel to read from
+    //                    [IN] ByteBuffer buf -> Buffer to fill up to its limit
+    //  Description     : Reads from the current channel position until the
+    //                    buffer is full or end of file is reached.
+    //  Returns         : int - Number of bytes read (0 at end of file)
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static int ReadFully(FileChannel ch, ByteBuffer buf) throws IOException
+    {
+        int iTotal = 0;
+
+        while (buf.hasRemaining())
+        {
+            int iRet = ch.read(buf);
+
+            if (iRet < 0)
+            {
+                break;
+            }
+
+            iTotal += iRet;
+        }
+
+        return iTotal;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : ReadFully
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] FileChannel ch -> Channel to read from
+    //                    [IN] ByteBuffer buf -> Buffer to fill up to its limit
+    //                    [IN] long position  -> File offset to start at
+    //  Description     : Positional variant; does not move the channel
+    //                    position, so it is safe for concurrent readers.
+    //  Returns         : int - Number of bytes read (0 at end of file)
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static int ReadFully(FileChannel ch, ByteBuffer buf, long position) throws IOException
+    {
+        int iTotal = 0;
+
+        while (buf.hasRemaining())
+        {
+            int iRet = ch.read(buf, position + iTotal);
+
+            if (iRet < 0)
+            {
+                break;
+            }
+
+            iTotal += iRet;
+        }
+
+        return iTotal;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : WriteFully
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] FileChannel ch -> Channel to write to
+    //                    [IN] ByteBuffer buf -> Bytes between position and limit
+    //  Description     : Writes the whole buffer at the current position.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static void WriteFully(FileChannel ch, ByteBuffer buf) throws IOException
+    {
+        while (buf.hasRemaining())
+        {
+            ch.write(buf);
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : WriteFully
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] FileChannel ch -> Channel to write to
+    //                    [IN] ByteBuffer buf -> Bytes between position and limit
+    //                    [IN] long position  -> File offset to start at
+    //  Description     : Positional variant; does not move the channel
+    //                    position, so it is safe for concurrent writers.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static void WriteFully(FileChannel ch, ByteBuffer buf, long position) throws IOException
+    {
+        while (buf.hasRemaining())
+        {
+            position += ch.write(buf, position);
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : WriteFully
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] FileChannel ch    -> Channel to write to
+    //                    [IN] ByteBuffer bufs[] -> Buffers written in order
+    //                    [IN] int iCount        -> Number of buffers used
+    //                    [IN] long position     -> File offset to start at
+    //  Description     : Gathering variant: the buffers are handed to the
+    //                    OS together (one writev per call). Moves the
+    //                    channel position, so only one thread may call it
+    //                    per channel.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static void WriteFully(FileChannel ch, ByteBuffer bufs[], int iCount, long position) throws IOException
+    {
+        ch.position(position);
+
+        int iFirst = 0;
+
+        while (iFirst < iCount)
+        {
+            if (!bufs[iFirst].hasRemaining())
+            {
+                iFirst++;
+                continue;
+            }
+
+            ch.write(bufs, iFirst, iCount - iFirst);
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : Transfer
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] FileChannel src      -> Channel to copy from
+    //                    [IN] long SrcPosition     -> First byte to copy
+    //                    [IN] long Count           -> Number of bytes
+    //                    [IN] FileChannel dst      -> Channel to copy to
+    //                    [IN] long DstPosition     -> Where the copy starts
+    //  Description     : Copies a byte range between files with transferTo,
+    //                    which the OS can serve without passing the data
+    //                    through the Java heap. Moves dst's position, so
+    //                    only one thread may call it per destination.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static void Transfer(FileChannel src, long SrcPosition, long Count,
+                         FileChannel dst, long DstPosition) throws IOException
+    {
+        dst.position(DstPosition);
+
+        while (Count > 0)
+        {
+            long n = src.transferTo(SrcPosition, Count, dst);
+
+            if (n <= 0)
+            {
+                throw new EOFException("Source ends at offset " + SrcPosition);
+            }
+
+            SrcPosition += n;
+            Count -= n;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package MarvellousPackerUnpacker;
+
+import java.io.IOException;
+
+/////////////////////////////////////////////////////////////////////////
+//
+//  Class :         ChecksumException
+//  Description :   Thrown when the CRC32C of restored contents differs
+//                  from the one recorded when the entry was packed: the
+//                  pack is corrupt or the keys are wrong.
+//  Author :        Rutik Shivaji Thitame
+//
+/////////////////////////////////////////////////////////////////////////
+
+public class ChecksumException extends IOException
+{
+    private static final long serialVersionUID = 1L;
+
+    private final String EntryName;
+
+    public ChecksumException(String EntryName)
+    {
+        super("Checksum mismatch : " + EntryName);
+        this.EntryName = EntryName;
+    }
+
+    public String GetEntryName()
+    {
+        return EntryName;
+    }
+}
@@ -0,0 +1,404 @@
+package MarvellousPackerUnpacker;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32C;
+
+/////////////////////////////////////////////////////////////////////////
+//
+//  Class :         ChunkPipeline
+//  Description :   Overlaps the read, cipher and write steps of one
+//                  range of an entry, which the channel path otherwise
+//                  runs one after the other for every chunk. The calling
+//                  thread reads chunks, iWorkers threads encrypt or
+//                  decrypt them, and one writer thread writes them in
+//                  order. The stages are linked by bounded queues over a
+//                  fixed ring of chunk buffers that is reused for every
+//                  range: the reader blocks when all chunks are in
+//                  flight, so memory stays at iDepth chunks. When packing,
+//                  the reader checksums the plaintext; when unpacking,
+//                  the writer does, since it sees the chunks in order.
+//                  One pipeline serves one range at a time.
+//  Author :        Rutik Shivaji Thitame
+//
+/////////////////////////////////////////////////////////////////////////
+
+final class ChunkPipeline implements AutoCloseable
+{
+    // One slot of the ring; the fields describe its current contents
+    private static final class Chunk
+    {
+        final ByteBuffer Buffer;
+        long Seq;          // Position in the range, or chunk count in an end marker
+        long Start;        // Offset of the chunk within the entry
+        int iLength;       // Bytes of contents
+        int iStored;       // Bytes as stored (multiple of 8)
+
+        Chunk(ByteBuffer Buffer)
+        {
+            this.Buffer = Buffer;
+        }
+    }
+
+    private static final Chunk STOP = new Chunk(null);    // Ends a cipher worker
+
+    private final int iWorkers;
+    private final ExecutorService Threads;
+    private final BlockingQueue<Chunk> Free;             // Ready to be filled
+    private final BlockingQueue<Chunk> Work;             // Read, waiting for the cipher
+    private final BlockingQueue<Chunk> Done;             // Ciphered, waiting for the writer
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : ChunkPipeline (Constructor)
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] int iWorkers   -> Cipher threads (>= 1)
+    //                    [IN] int iChunkSize -> Bytes per chunk (multiple of 8)
+    //  Description     : Allocates a ring of 2 * iWorkers + 2 chunks and
+    //                    the stage threads, which idle between ranges.
+    //  Returns         : None
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    ChunkPipeline(int iWorkers, int iChunkSize)
+    {
+        if (iWorkers < 1)
+        {
+            throw new IllegalArgumentException("Invalid pipeline workers : " + iWorkers);
+        }
+
+        int iDepth = iWorkers * 2 + 2;
+
+        this.iWorkers = iWorkers;
+        this.Free = new ArrayBlockingQueue<>(iDepth);
+        this.Work = new ArrayBlockingQueue<>(iDepth + iWorkers);
+        this.Done = new ArrayBlockingQueue<>(iDepth + 1);
+        this.Threads = Executors.newFixedThreadPool(iWorkers + 1, Runnable ->
+        {
+            Thread tobj = new Thread(Runnable, "ChunkPipeline");
+            tobj.setDaemon(true);
+            return tobj;
+        });
+
+        for (int i = 0; i < iDepth; i++)
+        {
+            Free.add(new Chunk(ByteBuffer.allocate(iChunkSize)));
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : Pack
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] FileChannel fiobj -> Source file
+    //                    [IN] FileChannel foobj -> Packed file
+    //                    [IN] PackEntry Entry   -> Entry being written
+    //                    [IN] long Start        -> First file byte (multiple of 8)
+    //                    [IN] long Length       -> Number of file bytes
+    //                    [IN] PackCipher cipher -> Cipher
+    //                    [IN OUT] CRC32C Crc    -> Updated with the range
+    //                    [IN] PackMetrics Metrics -> Counters, or null
+    //  Description     : Pipelined MarvellousPacker.PackContents: same
+    //                    padding, checksum and output bytes.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    void Pack(FileChannel fiobj, FileChannel foobj, PackEntry Entry, long Start, long Length,
+              PackCipher cipher, CRC32C Crc, PackMetrics Metrics) throws IOException
+    {
+        Run(fiobj, foobj, Entry, Start, Length, cipher, Crc, Metrics, true);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : Unpack
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] FileChannel fiobj -> Packed file
+    //                    [IN] FileChannel foobj -> Output file, null to only
+    //                                              checksum
+    //                    [IN] PackEntry Entry   -> Entry to restore
+    //                    [IN] long Start        -> First file byte (multiple of 8)
+    //                    [IN] long Length       -> Number of file bytes
+    //                    [IN] PackCipher cipher -> Cipher
+    //                    [IN OUT] CRC32C Crc    -> Updated with the range
+    //                    [IN] PackMetrics Metrics -> Counters, or null
+    //  Description     : Pipelined MarvellousUnpacker.UnpackContents.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    void Unpack(FileChannel fiobj, FileChannel foobj, PackEntry Entry, long Start, long Length,
+                PackCipher cipher, CRC32C Crc, PackMetrics Metrics) throws IOException
+    {
+        Run(fiobj, foobj, Entry, Start, Length, cipher, Crc, Metrics, false);
+    }
+
+    // A stage that fails records why and keeps passing chunks on, so every
+    // chunk returns to the ring and all stages finish the range
+    private void Run(FileChannel fiobj, FileChannel foobj, PackEntry Entry, long Start, long Length,
+                     PackCipher cipher, CRC32C Crc, PackMetrics Metrics, boolean bPack) throws IOException
+    {
+        AtomicReference<Exception> Failure = new AtomicReference<>();
+        List<Future<?>> Stages = new ArrayList<>(iWorkers + 1);
+
+        for (int i = 0; i < iWorkers; i++)
+        {
+            Stages.add(Threads.submit(() ->
+            {
+                Cipher(Entry, cipher, Metrics, bPack, Failure);
+                return null;
+            }));
+        }
+
+        Stages.add(Threads.submit(() ->
+        {
+            Write(foobj, Entry, Crc, Metrics, bPack, Failure);
+            return null;
+        }));
+
+        try
+        {
+            long Total = bPack ? Length : PackFormat.StoredSize(Length);
+            long Queued = 0;
+            long Seq = 0;
+
+            while (Queued < Total && Failure.get() == null)
+            {
+                Chunk Slot = Free.take();
+                long Want = Math.min(Slot.Buffer.capacity(), Total - Queued);
+
+                try
+                {
+                    Read(fiobj, Entry, Slot, Start + Queued, Want, Length - Queued, Crc, Metrics, bPack);
+                }
+                catch (IOException | RuntimeException eobj)
+                {
+                    Failure.compareAndSet(null, eobj);
+                    Free.put(Slot);
+                    break;
+                }
+
+                Slot.Seq = Seq++;
+                Work.put(Slot);
+                Queued += Want;
+            }
+
+            // Tells the writer how many chunks to expect
+            Chunk End = new Chunk(null);
+            End.Seq = Seq;
+            Done.put(End);
+
+            for (int i = 0; i < iWorkers; i++)
+            {
+                Work.put(STOP);
+            }
+
+            for (Future<?> Stage : Stages)
+            {
+                Stage.get();
+            }
+        }
+        catch (InterruptedException eobj)
+        {
+            Thread.currentThread().interrupt();
+            Threads.shutdownNow();
+            throw new InterruptedIOException("Pipeline interrupted");
+        }
+        catch (ExecutionException eobj)
+        {
+            throw new IOException(eobj.getCause());
+        }
+
+        Exception eobj = Failure.get();
+
+        if (eobj instanceof IOException)
+        {
+            throw (IOException) eobj;
+        }
+        else if (eobj != null)
+        {
+            throw new IOException(eobj);
+        }
+    }
+
+    // Reader stage, on the calling thread
+    private static void Read(FileChannel fiobj, PackEntry Entry, Chunk Slot, long Offset, long Want,
+                             long Left, CRC32C Crc, PackMetrics Metrics, boolean bPack) throws IOException
+    {
+        ByteBuffer Buffer = Slot.Buffer;
+        int iWant = (int) Want;
+        long Tick = PackMetrics.Now(Metrics);
+
+        Slot.Start = Offset;
+        Buffer.clear().limit(iWant);
+
+        if (bPack)
+        {
+            int iRet = ChannelIO.ReadFully(fiobj, Buffer, Offset);
+
+            // Padding for last block (or for a file that shrank)
+            Slot.iLength = iWant;
+            Slot.iStored = (int) PackFormat.StoredSize(iWant);
+            Buffer.limit(Slot.iStored);
+
+            while (Buffer.hasRemaining())
+            {
+                Buffer.put((byte) 0);
+            }
+
+            if (Metrics != null)
+            {
+                Metrics.Read(iRet, Tick);
+            }
+
+            Crc.update(Buffer.position(0).limit(iWant));
+        }
+        else
+        {
+            if (ChannelIO.ReadFully(fiobj, Buffer, Entry.DataOffset + Offset) < iWant)
+            {
+                throw new EOFException("Truncated entry data : " + Entry.Name);
+            }
+
+            Slot.iLength = (int) Math.min(iWant, Left);
+            Slot.iStored = iWant;
+
+            if (Metrics != null)
+            {
+                Metrics.Read(iWant, Tick);
+            }
+        }
+    }
+
+    // Cipher stage, iWorkers at once
+    private void Cipher(PackEntry Entry, PackCipher cipher, PackMetrics Metrics, boolean bPack,
+                        AtomicReference<Exception> Failure) throws InterruptedException
+    {
+        Chunk Slot;
+
+        while ((Slot = Work.take()) != STOP)
+        {
+            if (Failure.get() == null)
+            {
+                try
+                {
+                    long Tick = PackMetrics.Now(Metrics);
+                    ByteBuffer Buffer = Slot.Buffer.position(0).limit(Slot.iStored);
+
+                    if (bPack)
+                    {
+                        PackFormat.EncryptMapped(cipher, Entry, Buffer, Buffer, Slot.Start);
+                    }
+                    else
+                    {
+                        PackFormat.DecryptMapped(cipher, Entry, Buffer, Buffer, Slot.Start);
+                    }
+
+                    if (Metrics != null)
+                    {
+                        Metrics.Encrypted(Slot.iStored, Tick);
+                    }
+                }
+                catch (RuntimeException eobj)
+                {
+                    Failure.compareAndSet(null, eobj);
+                }
+            }
+
+            Done.put(Slot);
+        }
+    }
+
+    // Writer stage: restores range order, then writes and hands the chunk back
+    private void Write(FileChannel foobj, PackEntry Entry, CRC32C Crc, PackMetrics Metrics, boolean bPack,
+                       AtomicReference<Exception> Failure) throws InterruptedException
+    {
+        Map<Long, Chunk> Early = new HashMap<>();
+        long Next = 0;
+        long Total = -1;
+
+        while (Total < 0 || Next < Total)
+        {
+            Chunk Slot = Done.take();
+
+            if (Slot.Buffer == null)
+            {
+                Total = Slot.Seq;
+                continue;
+            }
+
+            Early.put(Slot.Seq, Slot);
+
+            while ((Slot = Early.remove(Next)) != null)
+            {
+                if (Failure.get() == null)
+                {
+                    try
+                    {
+                        WriteChunk(foobj, Entry, Slot, Crc, Metrics, bPack);
+                    }
+                    catch (IOException | RuntimeException eobj)
+                    {
+                        Failure.compareAndSet(null, eobj);
+                    }
+                }
+
+                Free.put(Slot);
+                Next++;
+            }
+        }
+    }
+
+    private static void WriteChunk(FileChannel foobj, PackEntry Entry, Chunk Slot, CRC32C Crc,
+                                   PackMetrics Metrics, boolean bPack) throws IOException
+    {
+        ByteBuffer Buffer = Slot.Buffer;
+        long Tick = PackMetrics.Now(Metrics);
+
+        if (bPack)
+        {
+            ChannelIO.WriteFully(foobj, Buffer.position(0).limit(Slot.iStored), Entry.DataOffset + Slot.Start);
+
+            if (Metrics != null)
+            {
+                Metrics.Written(Slot.iStored, Tick);
+            }
+
+            return;
+        }
+
+        // Write only the original bytes (drop padding of last block)
+        Crc.update(Buffer.position(0).limit(Slot.iLength));
+
+        if (foobj != null)
+        {
+            ChannelIO.WriteFully(foobj, Buffer.position(0), Slot.Start);
+
+            if (Metrics != null)
+            {
+                Metrics.Written(Slot.iLength, Tick);
+            }
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : close
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : None
+    //  Description     : Stops the stage threads.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    @Override
+    public void close()
+    {
+        Threads.shutdownNow();
+    }
+}
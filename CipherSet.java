@@ -0,0 +1,60 @@
+package MarvellousPackerUnpacker;
+
+import java.io.IOException;
+
+/////////////////////////////////////////////////////////////////////////
+//
+//  Class :         CipherSet
+//  Description :   One engine per known algorithm, all keyed with the
+//                  same pair of integers. Readers use it to pick the
+//                  engine named in each entry's header flags. Immutable
+//                  and shared between worker threads.
+//  Author :        Rutik Shivaji Thitame
+//
+/////////////////////////////////////////////////////////////////////////
+
+final class CipherSet
+{
+    private final PackCipher Engines[] = new PackCipher[PackCipher.ALGORITHM_COUNT];
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : CipherSet (Constructor)
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] int key1 -> First encryption key
+    //                    [IN] int key2 -> Second encryption key
+    //  Description     : Creates every engine up front.
+    //  Returns         : None
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    CipherSet(int key1, int key2)
+    {
+        for (int i = 0; i < Engines.length; i++)
+        {
+            Engines[i] = PackCipher.Create(i, key1, key2);
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : For
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] PackEntry Entry -> Entry to decrypt
+    //  Description     : Engine recorded in the entry's flags.
+    //  Returns         : PackCipher
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    PackCipher For(PackEntry Entry) throws IOException
+    {
+        int iAlgorithm = PackFormat.Algorithm(Entry.Flags);
+
+        if (iAlgorithm >= Engines.length)
+        {
+            throw new IOException("Unknown cipher algorithm " + iAlgorithm + " : " + Entry.Name);
+        }
+
+        return Engines[iAlgorithm];
+    }
+}
@@ -0,0 +1,182 @@
+package MarvellousPackerUnpacker;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/////////////////////////////////////////////////////////////////////////
+//
+//  Class :         DedupTable
+//  Description :   Content-defined chunking and the fingerprint table of
+//                  one packing run. Cut points come from a gear rolling
+//                  hash, so an insertion only moves the boundaries next
+//                  to it and the remaining chunks still match. Every
+//                  unique chunk is stored once; later copies become
+//                  references to it. The payload of a FLAG_CHUNKED entry
+//                  is a run of records, each starting with a 32-byte
+//                  descriptor:
+//
+//                      int kind | int length | long offset |
+//                      long nonce | long counter
+//
+//                  KIND_NEW is followed by the chunk itself (padded to
+//                  8 bytes). KIND_REF points at an earlier chunk's data
+//                  in the pack and the nonce and counter it was
+//                  encrypted with. Descriptors are encrypted in counter
+//                  mode like the data around them.
+//  Author :        Rutik Shivaji Thitame
+//
+/////////////////////////////////////////////////////////////////////////
+
+final class DedupTable
+{
+    static final int MIN_CHUNK = 16 << 10;          // No cut before this
+    static final int MAX_CHUNK = 256 << 10;         // Forced cut
+    static final long CUT_MASK = (1L << 16) - 1;    // About 64 KiB on average
+    static final int RECORD_SIZE = 32;              // Descriptor length
+    static final int KIND_NEW = 0;                  // Chunk data follows
+    static final int KIND_REF = 1;                  // Chunk stored earlier
+
+    private static final long GEAR[] = new long[256];
+
+    static
+    {
+        // Fixed seed: cut points must not change between runs
+        SplittableRandom Random = new SplittableRandom(0x4D56504B43444331L);
+
+        for (int i = 0; i < GEAR.length; i++)
+        {
+            GEAR[i] = Random.nextLong();
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////
+    //
+    //  Class :         Ref
+    //  Description :   Where a unique chunk was stored and how it was
+    //                  encrypted.
+    //
+    /////////////////////////////////////////////////////////////////////////
+    static final class Ref
+    {
+        final long Offset;    // Pack offset of the encrypted chunk
+        final long Nonce;     // Nonce of the entry holding it
+        final long Counter;   // Its counter within that entry
+
+        Ref(long Offset, long Nonce, long Counter)
+        {
+            this.Offset = Offset;
+            this.Nonce = Nonce;
+            this.Counter = Counter;
+        }
+    }
+
+    private final Map<ByteBuffer, Ref> Chunks = new HashMap<>();
+    private final MessageDigest Digest;
+
+    final byte Window[] = new byte[MAX_CHUNK];                // Unchunked input
+    final byte Record[] = new byte[RECORD_SIZE + MAX_CHUNK];  // Record being written
+
+    long Unique = 0;         // Bytes stored as new chunks
+    long Duplicate = 0;      // Bytes replaced by references
+
+    DedupTable()
+    {
+        try
+        {
+            Digest = MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException eobj)
+        {
+            throw new IllegalStateException(eobj);
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : NextCut
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] byte Data[]  -> Input starting at a boundary
+    //                    [IN] int iLength  -> Bytes available; MAX_CHUNK
+    //                                         unless the input ends sooner
+    //  Description     : Length of the next chunk: the first position past
+    //                    MIN_CHUNK where the rolling hash matches CUT_MASK,
+    //                    else everything up to MAX_CHUNK.
+    //  Returns         : int
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static int NextCut(byte Data[], int iLength)
+    {
+        if (iLength <= MIN_CHUNK)
+        {
+            return iLength;
+        }
+
+        long Hash = 0;
+
+        for (int i = MIN_CHUNK; i < iLength; i++)
+        {
+            Hash = (Hash << 1) + GEAR[Data[i] & 0xFF];
+
+            if ((Hash & CUT_MASK) == 0)
+            {
+                return i + 1;
+            }
+        }
+
+        return iLength;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : ValidReference
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] long Offset       -> Pack offset a KIND_REF names
+    //                    [IN] int iStored       -> Stored length of the chunk
+    //                    [IN] long RecordOffset -> Pack offset of the KIND_REF
+    //                                              descriptor itself
+    //  Description     : References only ever point backwards, but may
+    //                    point into the entry they belong to: a file that
+    //                    repeats its own content refers to its earlier
+    //                    chunks. The packer checks what it writes and the
+    //                    unpacker what it reads with this same rule.
+    //  Returns         : boolean
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static boolean ValidReference(long Offset, int iStored, long RecordOffset)
+    {
+        return Offset >= 0 && Offset + iStored <= RecordOffset;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : Fingerprint
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] byte Data[]  -> Chunk
+    //                    [IN] int iLength  -> Chunk length
+    //  Description     : SHA-256 of the chunk, usable as a table key.
+    //  Returns         : ByteBuffer
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    ByteBuffer Fingerprint(byte Data[], int iLength)
+    {
+        Digest.update(Data, 0, iLength);
+
+        // Length is part of the key, so equal hashes of different sizes never match
+        return ByteBuffer.allocate(36).put(Digest.digest()).putInt(iLength).flip();
+    }
+
+    Ref Find(ByteBuffer Key)
+    {
+        return Chunks.get(Key);
+    }
+
+    void Add(ByteBuffer Key, Ref Chunk)
+    {
+        Chunks.put(Key, Chunk);
+    }
+}
@@ -0,0 +1,122 @@
+package MarvellousPackerUnpacker;
+
+/////////////////////////////////////////////////////////////////////////
+//
+//  Class :         JobResult
+//  Description :   Outcome of one PackJob: the activity's return code,
+//                  its text, the wall time and the bytes moved. ToJson
+//                  renders it as one line of structured output for the
+//                  batch runner.
+//  Author :        Rutik Shivaji Thitame
+//
+/////////////////////////////////////////////////////////////////////////
+
+public final class JobResult
+{
+    private final String Name;
+    private final int Kind;
+    private final int Code;
+    private final String Message;
+    private final long Millis;
+    private final long EntriesFinished;
+    private final long BytesRead;
+    private final long BytesWritten;
+
+    JobResult(PackJob Job, int Code, long Millis, PackMetrics Metrics)
+    {
+        this.Name = Job.Name;
+        this.Kind = Job.Kind;
+        this.Code = Code;
+        this.Message = Job.Describe(Code);
+        this.Millis = Millis;
+        this.EntriesFinished = Metrics.getEntriesFinished();
+        this.BytesRead = Metrics.getBytesRead();
+        this.BytesWritten = Metrics.getBytesWritten();
+    }
+
+    public String GetName()
+    {
+        return Name;
+    }
+
+    public int GetCode()
+    {
+        return Code;
+    }
+
+    public String GetMessage()
+    {
+        return Message;
+    }
+
+    public long GetMillis()
+    {
+        return Millis;
+    }
+
+    // Activities return the number of files on success, 0 for an empty pack
+    public boolean IsSuccess()
+    {
+        return Code >= 0;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : ToJson
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : None
+    //  Description     : Renders the result as a single-line JSON object.
+    //  Returns         : String
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public String ToJson()
+    {
+        return "{\"job\":" + Quote(Name)
+               + ",\"kind\":\"" + KindName() + "\""
+               + ",\"status\":\"" + (IsSuccess() ? "ok" : "failed") + "\""
+               + ",\"code\":" + Code
+               + ",\"message\":" + Quote(Message)
+               + ",\"millis\":" + Millis
+               + ",\"entries\":" + EntriesFinished
+               + ",\"bytesRead\":" + BytesRead
+               + ",\"bytesWritten\":" + BytesWritten + "}";
+    }
+
+    private String KindName()
+    {
+        switch (Kind)
+        {
+            case PackJob.PACK:   return "pack";
+            case PackJob.UNPACK: return "unpack";
+            case PackJob.MERGE:  return "merge";
+            case PackJob.REKEY:  return "rekey";
+            default:             return "verify";
+        }
+    }
+
+    static String Quote(String Text)
+    {
+        StringBuilder sobj = new StringBuilder("\"");
+
+        for (int i = 0; i < Text.length(); i++)
+        {
+            char ch = Text.charAt(i);
+
+            if (ch == '"' || ch == '\\')
+            {
+                sobj.append('\\').append(ch);
+            }
+            else if (ch < 0x20)
+            {
+                sobj.append(String.format("\\u%04x", (int) ch));
+            }
+            else
+            {
+                sobj.append(ch);
+            }
+        }
+
+        return sobj.append('"').toString();
+    }
+}
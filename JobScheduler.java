@@ -0,0 +1,149 @@
+package MarvellousPackerUnpacker;
+
+import java.util.concurrent.*;
+
+/////////////////////////////////////////////////////////////////////////
+//
+//  Class :         JobScheduler
+//  Description :   Runs PackJobs asynchronously under two limits: at most
+//                  MaxJobs jobs at once, and at most GlobalThreads worker
+//                  threads summed over all running jobs. A job holds one
+//                  permit per worker thread it uses (its "par" option,
+//                  capped at GlobalThreads) for as long as it runs, so a
+//                  wide job waits until enough narrow ones finish. Used
+//                  by the batch runner and by the GUI.
+//  Author :        Rutik Shivaji Thitame
+//
+/////////////////////////////////////////////////////////////////////////
+
+public class JobScheduler implements AutoCloseable
+{
+    private final int GlobalThreads;
+    private final Semaphore Threads;
+    private final ExecutorService Runners;
+    private volatile boolean Publish = false;
+    private volatile BufferPool Pool = null;
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : JobScheduler
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] int GlobalThreads -> Worker threads shared by
+    //                                              all jobs (>= 1)
+    //                    [IN] int MaxJobs       -> Jobs running at once (>= 1)
+    //  Description     : Creates the scheduler and its runner threads.
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public JobScheduler(int GlobalThreads, int MaxJobs)
+    {
+        if (GlobalThreads < 1 || MaxJobs < 1)
+        {
+            throw new IllegalArgumentException("Invalid scheduler limits : " + GlobalThreads + ", " + MaxJobs);
+        }
+
+        this.GlobalThreads = GlobalThreads;
+        this.Threads = new Semaphore(GlobalThreads, true);
+        this.Runners = Executors.newFixedThreadPool(MaxJobs, Runnable ->
+        {
+            Thread tobj = new Thread(Runnable, "PackJob");
+            tobj.setDaemon(true);
+            return tobj;
+        });
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : SetPublish
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] boolean flag -> true registers the metrics of
+    //                                         each running job over JMX
+    //  Description     : Jobs appear as PackMetrics MBeans named after the
+    //                    job while they run.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void SetPublish(boolean flag)
+    {
+        this.Publish = flag;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : SetBufferPool
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] BufferPool Pool -> Shared chunk buffers, or
+    //                                            null for per-job ones
+    //  Description     : Jobs started afterwards lease their chunk buffers
+    //                    from Pool, so all of them together stay under its
+    //                    cap.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void SetBufferPool(BufferPool Pool)
+    {
+        this.Pool = Pool;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : Submit
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] PackJob Job -> Job to run
+    //  Description     : Queues the job. It starts once a runner is free
+    //                    and its thread permits are available; jobs asking
+    //                    for permits are served in arrival order.
+    //  Returns         : CompletableFuture<JobResult> - Never completes
+    //                    exceptionally; failures are result codes
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public CompletableFuture<JobResult> Submit(PackJob Job)
+    {
+        int iPermits = Math.min(Math.max(Job.Parallelism, 1), GlobalThreads);
+
+        return CompletableFuture.supplyAsync(() ->
+        {
+            Threads.acquireUninterruptibly(iPermits);
+
+            try
+            {
+                return Job.Run(Publish, iPermits, Pool);
+            }
+            finally
+            {
+                Threads.release(iPermits);
+            }
+        }, Runners);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : close
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : None
+    //  Description     : Lets queued jobs finish, then stops the runners.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    @Override
+    public void close()
+    {
+        Runners.shutdown();
+
+        try
+        {
+            while (!Runners.awaitTermination(1, TimeUnit.MINUTES))
+            {
+            }
+        }
+        catch (InterruptedException eobj)
+        {
+            Runners.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,629 @@
+package MarvellousPackerUnpacker;
+
+import java.util.*;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardOpenOption;
+
+/////////////////////////////////////////////////////////////////////////
+//
+//  Class :         MarvellousMerger
+//  Description :   Combines several packed files written with the same
+//                  keys into one, without decrypting or re-encrypting
+//                  the contents. Headers hold no offsets and the cipher
+//                  does not depend on where an entry sits, so every
+//                  entry's header and stored bytes are copied with
+//                  transferTo, which the OS serves without passing them
+//                  through the Java heap. Only the 32-byte descriptors
+//                  of deduplicated entries that point at an earlier
+//                  chunk are decrypted, moved to the chunk's new offset
+//                  and encrypted again. Entries can be filtered by name
+//                  and same-named entries resolved (see SetConflict).
+//  Author :        Rutik Shivaji Thitame
+//
+/////////////////////////////////////////////////////////////////////////
+
+public class MarvellousMerger
+{
+    public static final int CONFLICT_KEEP = 0;     // Keep every copy; unpacking restores the last
+    public static final int CONFLICT_FIRST = 1;    // Keep the first entry of each name
+    public static final int CONFLICT_LAST = 2;     // Keep the last entry of each name
+    public static final int CONFLICT_RENAME = 3;   // Keep every copy, later ones as "name~2.ext"
+
+    private String PackName;   // Merged pack to create
+    private List<String> Inputs; // Packs to merge, in order
+    private int key1;          // First encryption key
+    private int key2;          // Second encryption key
+    private int Conflict = CONFLICT_KEEP;                    // Same-name policy
+    private PathMatcher Filter = null;                       // Entries to merge, null for all
+    private boolean WriteIndex = false;                      // Append central directory
+    private long VolumeSize = 0;                             // Bytes per volume, 0 = one file
+    private PackMetrics Metrics = null;                      // Counters and listeners
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : MarvellousMerger (Constructor)
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] String PackName     -> Merged pack to create
+    //                    [IN] List<String> Inputs -> Packed files to merge
+    //                    [IN] int key1            -> First encryption key
+    //                    [IN] int key2            -> Second encryption key
+    //  Description     : Initializes the output name, the input packs and
+    //                    the keys they were all written with.
+    //  Returns         : None
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public MarvellousMerger(String PackName, List<String> Inputs, int key1, int key2)
+    {
+        this.PackName = PackName;
+        this.Inputs = new ArrayList<>(Inputs);
+        this.key1 = key1;
+        this.key2 = key2;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : SetConflict
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] int iPolicy -> One of the CONFLICT_* values
+    //  Description     : Selects what happens to entries with the same
+    //                    name, within one input or across inputs. With
+    //                    CONFLICT_RENAME the first copy keeps its name and
+    //                    the others get "~2", "~3"... before the extension,
+    //                    skipping any name already in use.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void SetConflict(int iPolicy)
+    {
+        if (iPolicy < CONFLICT_KEEP || iPolicy > CONFLICT_RENAME)
+        {
+            throw new IllegalArgumentException("Invalid conflict policy : " + iPolicy);
+        }
+
+        this.Conflict = iPolicy;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : SetFilter
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] String Pattern -> "glob:" or "regex:" pattern
+    //                                           (glob when unprefixed), or
+    //                                           null for every entry
+    //  Description     : Merges only the entries whose name matches, as in
+    //                    MarvellousUnpacker.SetFilter. Conflicts are
+    //                    resolved among the matching entries.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void SetFilter(String Pattern)
+    {
+        if (Pattern == null)
+        {
+            this.Filter = null;
+        }
+        else if (Pattern.startsWith("glob:") || Pattern.startsWith("regex:"))
+        {
+            this.Filter = FileSystems.getDefault().getPathMatcher(Pattern);
+        }
+        else
+        {
+            this.Filter = FileSystems.getDefault().getPathMatcher("glob:" + Pattern);
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : SetWriteIndex
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] boolean bIndex -> true to append a directory
+    //  Description     : Appends a central directory after the last entry,
+    //                    carrying over the mtimes and checksums the input
+    //                    directories recorded, so the merged pack can be
+    //                    updated incrementally later.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void SetWriteIndex(boolean bIndex)
+    {
+        this.WriteIndex = bIndex;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : SetVolumeSize
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] long size -> Bytes per volume, 0 for a
+    //                                      single file (the default)
+    //  Description     : Splits the merged pack into volumes, as
+    //                    MarvellousPacker.SetVolumeSize. Inputs may be
+    //                    split or not either way.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void SetVolumeSize(long size)
+    {
+        this.VolumeSize = (size == 0) ? 0 : VolumeChannel.CheckVolumeSize(size);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : SetMetrics
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] PackMetrics Metrics -> Counters, or null
+    //  Description     : Counts the copied bytes and reports every entry
+    //                    to the metrics' listeners.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void SetMetrics(PackMetrics Metrics)
+    {
+        this.Metrics = Metrics;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : MergingActivity
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : None
+    //  Description     : Works in two phases. First the headers (or central
+    //                    directories) of all inputs are scanned, and the
+    //                    filter and conflict policy decide which entries
+    //                    are kept and under which name. Then the kept
+    //                    entries are copied in input order. Inputs with a
+    //                    central directory must match its key check;
+    //                    others are taken on trust. A failed merge leaves
+    //                    no output behind.
+    //  Returns         : int
+    //                    >0  -> Number of entries merged
+    //                    -1  -> Merged pack already exists
+    //                    -2  -> Input pack not found
+    //                    -3  -> Inputs hold no entries
+    //                    -4  -> Filter set and no entry matches
+    //                    -5  -> Input pack written with other keys
+    //                    -99 -> Unknown exception
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public int MergingActivity()
+    {
+        try
+        {
+            // Every engine a header may name (for chunk descriptors)
+            CipherSet Ciphers = new CipherSet(key1, key2);
+
+            File Packobj = new File(PackName);
+
+            if (Packobj.exists())
+            {
+                return -1;
+            }
+
+            for (String Input : Inputs)
+            {
+                if (!new File(Input).exists())
+                {
+                    return -2;
+                }
+            }
+
+            List<FileChannel> Sources = new ArrayList<>();
+
+            try
+            {
+                // Phase 1 : header-only scan of every input
+                List<List<PackEntry>> Picked = new ArrayList<>();
+
+                for (String Input : Inputs)
+                {
+                    FileChannel fiobj = VolumeChannel.Open(new File(Input).toPath());
+                    Sources.add(fiobj);
+
+                    PackIndex Index = PackIndex.Read(fiobj);
+
+                    if (Index != null && !KeysMatch(Index.KeyCheck))
+                    {
+                        return -5;
+                    }
+
+                    List<PackEntry> Entries = Select((Index != null) ? Index.Entries : PackFormat.ScanEntries(fiobj));
+
+                    if (Index != null)
+                    {
+                        for (PackEntry Entry : Entries)
+                        {
+                            PackFormat.CheckHeader(fiobj, Entry);
+                        }
+                    }
+
+                    Picked.add(Entries);
+                }
+
+                List<List<String>> Names = Resolve(Picked);
+                int iCount = 0;
+
+                for (List<String> Some : Names)
+                {
+                    for (String Name : Some)
+                    {
+                        iCount += (Name != null) ? 1 : 0;
+                    }
+                }
+
+                if (iCount == 0)
+                {
+                    return (Filter != null) ? -4 : -3;
+                }
+
+                if (Metrics != null)
+                {
+                    Metrics.Expect(iCount);
+                }
+
+                // Phase 2 : copy
+                if (!Packobj.createNewFile())
+                {
+                    return -1;
+                }
+
+                Merge(Packobj, Sources, Picked, Names, Ciphers);
+
+                return iCount;  // success, number of entries merged
+            }
+            finally
+            {
+                for (FileChannel fiobj : Sources)
+                {
+                    fiobj.close();
+                }
+            }
+        }
+        catch (Exception eobj)
+        {
+            eobj.printStackTrace();
+            return -99;
+        }
+    }
+
+    // Writes the merged pack; removes it again if anything fails
+    private void Merge(File Packobj, List<FileChannel> Sources, List<List<PackEntry>> Picked,
+                       List<List<String>> Names, CipherSet Ciphers) throws IOException
+    {
+        boolean bDone = false;
+
+        // Volumes are created as they are first written
+        VolumeChannel Volumes = (VolumeSize > 0) ? VolumeChannel.Create(Packobj.toPath(), VolumeSize) : null;
+
+        try (FileChannel foobj = (Volumes != null) ? Volumes : FileChannel.open(Packobj.toPath(),
+                StandardOpenOption.READ, StandardOpenOption.WRITE))
+        {
+            List<PackEntry> Written = new ArrayList<>();
+            long Position = 0;
+
+            for (int i = 0; i < Sources.size(); i++)
+            {
+                // Copied entries of this input by their old data offset
+                TreeMap<Long, PackEntry> Moved = new TreeMap<>();
+
+                for (int j = 0; j < Picked.get(i).size(); j++)
+                {
+                    PackEntry Entry = Picked.get(i).get(j);
+                    String Name = Names.get(i).get(j);
+
+                    if (Name == null)
+                    {
+                        continue;
+                    }
+
+                    long Since = PackMetrics.Now(Metrics);
+
+                    if (Metrics != null)
+                    {
+                        Metrics.EntryStarted(Entry);
+                    }
+
+                    PackEntry Copied = Copy(Sources.get(i), foobj, Entry, Name, Position, Ciphers, Moved);
+                    Position = Copied.DataOffset + Copied.StoredSize();
+                    Written.add(Copied);
+
+                    if (Metrics != null)
+                    {
+                        Metrics.EntryFinished(Copied, Since);
+                    }
+                }
+            }
+
+            if (WriteIndex)
+            {
+                // Central directory + footer after the last entry
+                PackIndex.Write(foobj, Position, Written, PackFormat.KeyCheck(Ciphers.For(Written.get(0))));
+            }
+
+            if (Volumes != null)
+            {
+                Volumes.Finish();
+            }
+
+            bDone = true;
+        }
+        finally
+        {
+            if (!bDone)
+            {
+                VolumeChannel.Delete(Packobj.toPath());
+            }
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : Copy
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] FileChannel fiobj -> Input pack
+    //                    [IN] FileChannel foobj -> Merged pack
+    //                    [IN] PackEntry Entry   -> Entry to copy
+    //                    [IN] String Name       -> Its name in the merged pack
+    //                    [IN] long Position     -> Where its header goes
+    //                    [IN] CipherSet Ciphers -> Engines by algorithm id
+    //                    [IN OUT] TreeMap<Long, PackEntry> Moved
+    //                                           -> Entries of this input
+    //                                              copied so far, by their
+    //                                              old data offset
+    //  Description     : Copies one entry. The header is copied as it is,
+    //                    or rebuilt as a binary header for a new name;
+    //                    the stored bytes are always copied unread, but
+    //                    for the references of a chunked entry.
+    //  Returns         : PackEntry - The entry in the merged pack
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    private PackEntry Copy(FileChannel fiobj, FileChannel foobj, PackEntry Entry, String Name, long Position,
+                           CipherSet Ciphers, TreeMap<Long, PackEntry> Moved) throws IOException
+    {
+        boolean bRename = !Name.equals(Entry.Name);
+        long HeaderLength = bRename ? PackFormat.HeaderLength(Name, false, Entry.Hash >= 0)
+                                    : Entry.DataOffset - Entry.HeaderOffset;
+
+        PackEntry Copied = new PackEntry(Name, Entry.Size, Position, Position + HeaderLength,
+                                         Entry.Flags, Entry.Nonce, Entry.StoredSize());
+        Copied.Hash = Entry.Hash;
+        Copied.Modified = Entry.Modified;
+        Moved.put(Entry.DataOffset, Copied);
+
+        boolean bChunked = (Entry.Flags & PackFormat.FLAG_CHUNKED) != 0;
+        long Tick = PackMetrics.Now(Metrics);
+
+        if (bRename)
+        {
+            ChannelIO.WriteFully(foobj, ByteBuffer.wrap(PackFormat.BuildHeader(Copied, false)), Position);
+
+            if (!bChunked)
+            {
+                ChannelIO.Transfer(fiobj, Entry.DataOffset, Entry.StoredSize(), foobj, Copied.DataOffset);
+            }
+        }
+        else
+        {
+            // Header and contents in one transfer
+            ChannelIO.Transfer(fiobj, Entry.HeaderOffset, HeaderLength + (bChunked ? 0 : Entry.StoredSize()),
+                               foobj, Position);
+        }
+
+        if (Metrics != null)
+        {
+            Metrics.Transferred(HeaderLength + (bChunked ? 0 : Entry.StoredSize()), Tick);
+        }
+
+        if (bChunked)
+        {
+            CopyChunked(fiobj, foobj, Entry, Copied, Ciphers.For(Entry), Moved);
+        }
+
+        return Copied;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : CopyChunked
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] FileChannel fiobj -> Input pack
+    //                    [IN] FileChannel foobj -> Merged pack
+    //                    [IN] PackEntry Entry   -> Chunked entry to copy
+    //                    [IN] PackEntry Copied  -> Same entry, merged
+    //                    [IN] PackCipher cipher -> Its cipher
+    //                    [IN] TreeMap<Long, PackEntry> Moved
+    //                                           -> Entries of this input
+    //                                              copied so far
+    //  Description     : Copies the chunk records of a deduplicated entry.
+    //                    New chunks go across with their descriptor
+    //                    unread. A reference is decrypted, pointed at the
+    //                    chunk's offset in the merged pack and encrypted
+    //                    again with the same counter; one into an entry
+    //                    the filter or conflict policy left out cannot be
+    //                    merged.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    private void CopyChunked(FileChannel fiobj, FileChannel foobj, PackEntry Entry, PackEntry Copied,
+                             PackCipher cipher, TreeMap<Long, PackEntry> Moved) throws IOException
+    {
+        byte Descriptor[] = new byte[DedupTable.RECORD_SIZE];
+        ByteBuffer Fields = ByteBuffer.wrap(Descriptor);
+
+        long Pos = 0;         // Within the stored records
+
+        while (Pos < Entry.StoredSize())
+        {
+            if (Entry.StoredSize() - Pos < Descriptor.length)
+            {
+                throw new EOFException("Truncated chunk record : " + Entry.Name);
+            }
+
+            MarvellousUnpacker.ReadDecrypted(fiobj, Entry, Descriptor, Descriptor.length, Pos, cipher, Metrics);
+
+            int iKind = Fields.getInt(0);
+            int iLength = Fields.getInt(4);
+            long Stored = PackFormat.StoredSize(iLength);
+            long Tick = PackMetrics.Now(Metrics);
+
+            if (iLength < 0 || iLength > DedupTable.MAX_CHUNK)
+            {
+                throw new IOException("Corrupt chunk record : " + Entry.Name);
+            }
+
+            if (iKind == DedupTable.KIND_NEW)
+            {
+                if (Pos + Descriptor.length + Stored > Entry.StoredSize())
+                {
+                    throw new EOFException("Truncated chunk record : " + Entry.Name);
+                }
+
+                ChannelIO.Transfer(fiobj, Entry.DataOffset + Pos, Descriptor.length + Stored,
+                                   foobj, Copied.DataOffset + Pos);
+
+                if (Metrics != null)
+                {
+                    Metrics.Transferred(Descriptor.length + Stored, Tick);
+                }
+
+                Pos += Descriptor.length + Stored;
+            }
+            else if (iKind == DedupTable.KIND_REF)
+            {
+                long Offset = Fields.getLong(8);
+                Map.Entry<Long, PackEntry> Holder = Moved.floorEntry(Offset);
+
+                if (Holder == null || Offset + Stored > Holder.getKey() + Holder.getValue().StoredSize())
+                {
+                    throw new IOException("Chunk reference into an entry left out of the merge : " + Entry.Name);
+                }
+
+                Fields.putLong(8, Offset - Holder.getKey() + Holder.getValue().DataOffset);
+                PackFormat.EncryptChunk(cipher, Entry, Descriptor, Descriptor.length, Pos);
+                ChannelIO.WriteFully(foobj, ByteBuffer.wrap(Descriptor), Copied.DataOffset + Pos);
+
+                if (Metrics != null)
+                {
+                    Metrics.Written(Descriptor.length, Tick);
+                }
+
+                Pos += Descriptor.length;
+            }
+            else
+            {
+                throw new IOException("Corrupt chunk record : " + Entry.Name);
+            }
+        }
+    }
+
+    // True when a recorded key check belongs to these keys, under any engine
+    private boolean KeysMatch(long KeyCheck)
+    {
+        for (int i = 0; i < PackCipher.ALGORITHM_COUNT; i++)
+        {
+            if (PackFormat.KeyCheck(PackCipher.Create(i, key1, key2)) == KeyCheck)
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    // Entries whose name matches the filter, in pack order
+    private List<PackEntry> Select(List<PackEntry> Entries) throws IOException
+    {
+        if (Filter == null)
+        {
+            return Entries;
+        }
+
+        List<PackEntry> Selected = new ArrayList<>();
+
+        for (PackEntry Entry : Entries)
+        {
+            if (Filter.matches(PackFormat.OutputPath(Entry.Name)))
+            {
+                Selected.add(Entry);
+            }
+        }
+
+        return Selected;
+    }
+
+    // Merged name of every picked entry, null where the policy drops it
+    private List<List<String>> Resolve(List<List<PackEntry>> Picked)
+    {
+        Map<String, PackEntry> Last = new HashMap<>();
+        Set<String> Taken = new HashSet<>();        // Original names, then new ones
+        Set<String> Kept = new HashSet<>();         // Names already given out
+
+        for (List<PackEntry> Entries : Picked)
+        {
+            for (PackEntry Entry : Entries)
+            {
+                Last.put(Entry.Name, Entry);
+                Taken.add(Entry.Name);
+            }
+        }
+
+        List<List<String>> Names = new ArrayList<>();
+
+        for (List<PackEntry> Entries : Picked)
+        {
+            List<String> Some = new ArrayList<>(Entries.size());
+
+            for (PackEntry Entry : Entries)
+            {
+                String Name = Entry.Name;
+                boolean bFirst = Kept.add(Name);
+
+                if (Conflict == CONFLICT_FIRST && !bFirst)
+                {
+                    Name = null;
+                }
+                else if (Conflict == CONFLICT_LAST && Last.get(Name) != Entry)
+                {
+                    Name = null;
+                }
+                else if (Conflict == CONFLICT_RENAME && !bFirst)
+                {
+                    for (int n = 2; !Taken.add(Name = Renamed(Entry.Name, n)); n++)
+                    {
+                    }
+                }
+
+                Some.add(Name);
+            }
+
+            Names.add(Some);
+        }
+
+        return Names;
+    }
+
+    // "dir/a.txt" becomes "dir/a~2.txt"; names without an extension get a suffix
+    static String Renamed(String Name, int n)
+    {
+        int iSlash = Name.lastIndexOf('/');
+        int iDot = Name.lastIndexOf('.');
+
+        if (iDot <= iSlash + 1)
+        {
+            return Name + "~" + n;
+        }
+
+        return Name.substring(0, iDot) + "~" + n + Name.substring(iDot);
+    }
+}
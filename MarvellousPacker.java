@@ -1,16 +1,35 @@
 package MarvellousPackerUnpacker;
-import MarvellousPackerUnpacker.BlowfishEncryption;
 
 import java.util.*;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.SecureRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32C;
+import java.util.zip.Deflater;
 
 /////////////////////////////////////////////////////////////////////////
 //
 //  Class :         MarvellousPacker
 //  Description :   Creates a single packed file from all files inside 
-//                  a given directory. Each file is stored with a fixed 
-//                  size header (100 bytes) containing its name and size,
-//                  followed by the file’s encrypted contents (Blowfish).
+//                  a given directory (optionally its whole tree, stored
+//                  under relative paths). Each file is stored with a
+//                  compact binary header (or the legacy 100-byte text
+//                  header, see SetLegacyHeader) containing its name and
+//                  size, followed by the file’s encrypted contents
+//                  (Blowfish, or AES when selected with SetAlgorithm).
+//                  A CRC32C of the contents, taken in the same pass as
+//                  the encryption, goes into binary headers and the
+//                  central directory so unpacking can detect corruption
+//                  and wrong keys. The pack can be split into volumes
+//                  of a fixed size (see SetVolumeSize).
 //  Author :        Rutik Shivaji Thitame
 //
 /////////////////////////////////////////////////////////////////////////
@@ -21,6 +40,22 @@ public class MarvellousPacker
     private String DirName;    // Directory containing files to pack
     private int key1;          // First encryption key
     private int key2;          // Second encryption key
+    private int ChunkSize = PackFormat.DEFAULT_CHUNK_SIZE;   // Bytes per I/O call
+    private int Parallelism = 1;                             // Worker threads
+    private boolean MemoryMapped = false;                    // Map files instead of copying
+    private boolean WriteIndex = false;                      // Append central directory
+    private boolean CounterMode = false;                     // CTR instead of ECB
+    private boolean Recursive = false;                       // Descend into subdirectories
+    private int CompressionLevel = 0;                        // Deflate level, 0 = off
+    private int Algorithm = PackCipher.ALGORITHM_BLOWFISH;   // Cipher engine id
+    private boolean Incremental = false;                     // Reuse entries of an existing pack
+    private boolean CompareHash = false;                     // Also compare CRC32C when reusing
+    private boolean Deduplicate = false;                     // Store repeated chunks once
+    private boolean LegacyHeader = false;                    // 100-byte text headers
+    private long VolumeSize = 0;                             // Bytes per volume, 0 = one file
+    private BufferPool Pooled = null;                        // Shared chunk buffers
+    private int PipelineWorkers = 0;                         // Cipher stages, 0 = no pipeline
+    private PackMetrics Metrics = null;                      // Counters and listeners
 
     /////////////////////////////////////////////////////////////////////////////
     //
@@ -44,19 +79,356 @@ public class MarvellousPacker
         this.key2 = key2;
     }
 
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : SetChunkSize
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] int size -> Bytes read, encrypted and written
+    //                                     per I/O call (multiple of 8)
+    //  Description     : Overrides the default 1 MiB chunk size. Values in
+    //                    the 64 KiB - 4 MiB range suit most disks.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void SetChunkSize(int size)
+    {
+        this.ChunkSize = PackFormat.CheckChunkSize(size);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : SetParallelism
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] int level -> Number of worker threads (>= 1)
+    //  Description     : Packs files concurrently when level is above 1.
+    //                    Pass Runtime.getRuntime().availableProcessors() to
+    //                    use every core. The pack is identical either way.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void SetParallelism(int level)
+    {
+        if (level < 1)
+        {
+            throw new IllegalArgumentException("Invalid parallelism : " + level);
+        }
+
+        this.Parallelism = level;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : SetMemoryMapped
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] boolean bMapped -> true to use mapped I/O
+    //  Description     : Selects memory-mapped I/O for large files. Files
+    //                    that cannot be mapped still go through channels.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void SetMemoryMapped(boolean bMapped)
+    {
+        this.MemoryMapped = bMapped;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : SetWriteIndex
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] boolean bIndex -> true to append a directory
+    //  Description     : Appends a central directory and footer (see
+    //                    PackIndex) so single entries can be found without
+    //                    walking the pack. Readers that predate the
+    //                    directory cannot open such packs.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void SetWriteIndex(boolean bIndex)
+    {
+        this.WriteIndex = bIndex;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : SetCounterMode
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] boolean bCounter -> true for CTR, false for ECB
+    //  Description     : Encrypts entries in counter mode with a random
+    //                    per-entry nonce stored in the header. Any block can
+    //                    then be decrypted on its own. Default is ECB.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void SetCounterMode(boolean bCounter)
+    {
+        this.CounterMode = bCounter;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : SetRecursive
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] boolean bRecursive -> true to pack the whole tree
+    //  Description     : Packs files in nested directories as well, named by
+    //                    their path relative to the packed directory ('/'
+    //                    separated). Otherwise subdirectories are skipped.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void SetRecursive(boolean bRecursive)
+    {
+        this.Recursive = bRecursive;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : SetCompressionLevel
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] int level -> Deflater level 1-9, 0 to disable
+    //  Description     : Deflates entries before encryption. The first
+    //                    64 KiB of each file is trial-compressed and files
+    //                    that do not shrink below 90% are stored unchanged.
+    //                    The method is recorded per entry. Compressed
+    //                    entries are packed on the walking thread, since the
+    //                    offset of everything after them depends on their
+    //                    compressed size; stored ones still use the pool.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void SetCompressionLevel(int level)
+    {
+        if (level < 0 || level > 9)
+        {
+            throw new IllegalArgumentException("Invalid compression level : " + level);
+        }
+
+        this.CompressionLevel = level;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : SetAlgorithm
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] int id -> PackCipher.ALGORITHM_BLOWFISH or
+    //                                   PackCipher.ALGORITHM_AES
+    //  Description     : Selects the cipher engine. The id is stored in
+    //                    every header, so the unpacker needs no setting.
+    //                    AES always runs in counter mode and uses the
+    //                    CPU's AES instructions where the JVM has them.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void SetAlgorithm(int id)
+    {
+        if (id < 0 || id >= PackCipher.ALGORITHM_COUNT)
+        {
+            throw new IllegalArgumentException("Unknown cipher algorithm : " + id);
+        }
+
+        this.Algorithm = id;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : SetIncremental
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] boolean bIncremental -> true to update in place
+    //  Description     : Lets PackingActivity rebuild an existing pack
+    //                    instead of failing. Entries whose file has the
+    //                    same size and modification time (and CRC32C, see
+    //                    SetCompareHash) as recorded in the old central
+    //                    directory are copied with transferTo, without
+    //                    decrypting them; only new or changed files are
+    //                    encrypted. The new pack is written next to the old
+    //                    one and replaces it at the end. A central directory
+    //                    is always written in this mode. Old packs without
+    //                    a central directory, or with other keys, are
+    //                    fully re-encrypted.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void SetIncremental(boolean bIncremental)
+    {
+        this.Incremental = bIncremental;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : SetCompareHash
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] boolean bHash -> true to checksum every file
+    //  Description     : In incremental mode only reuses an entry whose
+    //                    recorded CRC32C still matches the file. Costs one
+    //                    extra read of every file whose size and mtime
+    //                    are unchanged; use it where mtimes cannot be
+    //                    trusted.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void SetCompareHash(boolean bHash)
+    {
+        this.CompareHash = bHash;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : SetDeduplicate
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] boolean bDedup -> true to deduplicate
+    //  Description     : Splits files into content-defined chunks (16 KiB
+    //                    to 256 KiB, about 64 KiB on average) and stores
+    //                    every distinct chunk once per pack; repeats, in the
+    //                    same file or any later one, become 32-byte
+    //                    references. Such entries use counter mode, are
+    //                    not deflated, and are packed on the walking
+    //                    thread. The fingerprint table is kept in memory,
+    //                    about 100 bytes per unique chunk. Deduplicated
+    //                    entries can only be restored by MarvellousUnpacker
+    //                    (not UnpackerInputStream), which follows the
+    //                    references with positional reads.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void SetDeduplicate(boolean bDedup)
+    {
+        this.Deduplicate = bDedup;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : SetLegacyHeader
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] boolean bLegacy -> true for text headers
+    //  Description     : Writes the original 100-byte text headers instead
+    //                    of binary ones, for readers that predate them.
+    //                    Names containing spaces are rejected.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void SetLegacyHeader(boolean bLegacy)
+    {
+        this.LegacyHeader = bLegacy;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : SetVolumeSize
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] long size -> Bytes per volume (at least
+    //                                      64 KiB), or 0 for one file
+    //  Description     : Splits the pack into volumes "<pack>.001",
+    //                    "<pack>.002", ... of at most size bytes; the pack
+    //                    file itself then only holds a small manifest. The
+    //                    volumes are written concurrently when parallelism
+    //                    is above 1, since every worker writes straight to
+    //                    the volume its offset falls in. Pass the pack
+    //                    name to MarvellousUnpacker as usual.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void SetVolumeSize(long size)
+    {
+        this.VolumeSize = (size == 0) ? 0 : VolumeChannel.CheckVolumeSize(size);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : SetBufferPool
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] BufferPool Pool -> Shared chunk buffers, or
+    //                                            null (the default)
+    //  Description     : Leases the direct chunk buffers of the channel
+    //                    path from Pool, one per entry or segment in
+    //                    progress, waiting when it is exhausted. Without a
+    //                    pool every worker thread allocates its own heap
+    //                    buffer. Compression
+    //                    and hashing keep one heap buffer per job.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void SetBufferPool(BufferPool Pool)
+    {
+        this.Pooled = Pool;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : SetPipeline
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] int iWorkers -> Cipher threads, 0 = off (the
+    //                                         default)
+    //  Description     : With one worker thread (SetParallelism), overlaps
+    //                    reading, encrypting and writing the chunks of
+    //                    every entry larger than one chunk, using iWorkers
+    //                    cipher threads (see ChunkPipeline). Parallel
+    //                    packing already overlaps them across entries and
+    //                    ignores this setting. The pack is identical either
+    //                    way.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void SetPipeline(int iWorkers)
+    {
+        if (iWorkers < 0)
+        {
+            throw new IllegalArgumentException("Invalid pipeline workers : " + iWorkers);
+        }
+
+        this.PipelineWorkers = iWorkers;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : SetMetrics
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] PackMetrics Metrics -> Counters, or null
+    //  Description     : Counts bytes and time per stage and reports every
+    //                    entry to the metrics' listeners. Entries are
+    //                    started as they are found; small ones finish when
+    //                    their batch is written, split ones when their last
+    //                    segment is. null (the default) turns all of it off.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void SetMetrics(PackMetrics Metrics)
+    {
+        this.Metrics = Metrics;
+    }
+
     /////////////////////////////////////////////////////////////////////////////
     //
     //  Function Name   : PackingActivity
     //  Function Date   : 16/09/2025
     //  Function Author : Rutik Shivaji Thitame
     //  Parameters      : None
-    //  Description     : Traverses the given directory, reads all files, 
-    //                    and stores them inside a single packed file. 
+    //  Description     : Traverses the given directory (recursively when
+    //                    SetRecursive is on), reads all regular files as
+    //                    they are found, and stores them inside a single
+    //                    packed file. 
     //                    Each file is stored with a 100-byte header 
     //                    (filename + size) followed by encrypted contents.
+    //                    Data moves through FileChannels in whole chunks,
+    //                    optionally on several threads (SetParallelism).
     //  Returns         : int
     //                    >0  -> Number of files successfully packed
-    //                    -1  -> Packed file already exists
+    //                    -1  -> Packed file already exists (and
+    //                           SetIncremental is off)
     //                    -2  -> Directory not found
     //                    -3  -> No files in directory
     //                    -99 -> Unknown exception
@@ -66,10 +438,10 @@ public class MarvellousPacker
     {
         try
         {
-            int i = 0, j = 0, iRet = 0, iCountFile = 0;
+            int iCountFile = 0;
 
-            // Create Blowfish encryption object
-            BlowfishEncryption bEncryption = new BlowfishEncryption(key1, key2);
+            // Create the encryption engine selected for this pack
+            PackCipher cipher = PackCipher.Create(Algorithm, key1, key2);
 
             File fobj = new File(DirName);
 
@@ -77,75 +449,89 @@ public class MarvellousPacker
             if (fobj.exists() && fobj.isDirectory())
             {
                 File Packobj = new File(PackName);
+                File Outobj = Packobj;
+                FileChannel Oldobj = null;
 
-                // Try to create packed file (fails if already exists)
-                boolean bRet = Packobj.createNewFile();
-
-                if (bRet == false)
+                if (Incremental && Packobj.exists())
                 {
-                    return -1;   // packed file already exists
+                    // Rebuild next to the old pack, then swap it in
+                    Outobj = new File(PackName + ".tmp");
+                    VolumeChannel.Delete(Outobj.toPath());
+                    Oldobj = VolumeChannel.Open(Packobj.toPath());
                 }
 
-                // Get list of all files from directory
-                File Arr[] = fobj.listFiles();
+                // Try to create packed file (fails if already exists)
+                boolean bRet = Outobj.createNewFile();
 
-                if (Arr == null || Arr.length == 0)
+                if (bRet == false)
                 {
-                    return -3;  // no files inside directory
-                }
+                    if (Oldobj != null)
+                    {
+                        Oldobj.close();
+                    }
 
-                // Open output stream for packed file
-                FileOutputStream foobj = new FileOutputStream(Packobj);
+                    return -1;   // packed file already exists
+                }
 
-                // Buffer for reading 8 bytes at a time (Blowfish block size = 64 bits)
-                byte Buffer[] = new byte[8];
+                boolean bDone = false;
+                int iVolumes = 0;
 
-                String Header;
+                // Volumes are created as they are first written
+                VolumeChannel Volumes = (VolumeSize > 0) ? VolumeChannel.Create(Outobj.toPath(), VolumeSize) : null;
 
-                // Process each file inside the directory
-                for (i = 0; i < Arr.length; i++)
+                // Open output channel for packed file
+                try (FileChannel Prevobj = Oldobj;
+                     FileChannel foobj = (Volumes != null) ? Volumes : FileChannel.open(Outobj.toPath(),
+                        StandardOpenOption.READ, StandardOpenOption.WRITE))
                 {
-                    // Create header containing filename and file size
-                    Header = Arr[i].getName() + " " + Arr[i].length();
+                    // Walk the directory lazily; every file is packed as
+                    // soon as it is found, at the next free offset
+                    PackWalker Walker = new PackWalker(fobj.toPath(), foobj, cipher, Prevobj);
 
-                    // Pad header to make it exactly 100 bytes
-                    for (j = Header.length(); j < 100; j++)
+                    try
                     {
-                        Header = Header + " ";
+                        Files.walkFileTree(fobj.toPath(), EnumSet.noneOf(FileVisitOption.class),
+                                           Recursive ? Integer.MAX_VALUE : 1, Walker);
+                        Walker.Flush();
+                    }
+                    finally
+                    {
+                        Walker.Finish();
                     }
 
-                    // Write header (plain text) into packed file
-                    foobj.write(Header.getBytes("UTF-8"));
-
-                    // Open current file for reading
-                    FileInputStream fiobj = new FileInputStream(Arr[i]);
+                    iCountFile = Walker.iCount;
 
-                    // Read file data block by block (8 bytes each)
-                    while ((iRet = fiobj.read(Buffer)) != -1)
+                    if (iCountFile == 0)
                     {
-                        if (iRet < 8)
-                        {
-                            // Padding for last block (if not full 8 bytes)
-                            for (int k = iRet; k < 8; k++)
-                            {
-                                Buffer[k] = 0;
-                            }
-                        }
+                        return -3;  // no files inside directory
+                    }
 
-                        // Encrypt the 8-byte block
-                        byte[] encrypted = bEncryption.EncryptData(Buffer);
+                    if (WriteIndex || Incremental)
+                    {
+                        // Central directory + footer after the last entry
+                        PackIndex.Write(foobj, Walker.Position, Walker.Entries, PackFormat.KeyCheck(cipher));
+                    }
 
-                        // Write encrypted block into packed file
-                        foobj.write(encrypted, 0, encrypted.length);
+                    if (Volumes != null)
+                    {
+                        iVolumes = Volumes.Finish();
                     }
 
-                    // Close input file
-                    fiobj.close();
-                    iCountFile++;
+                    bDone = true;
+                }
+                finally
+                {
+                    if (Outobj != Packobj && !bDone)
+                    {
+                        VolumeChannel.Delete(Outobj.toPath());
+                    }
                 }
 
-                // Close packed file
-                foobj.close();
+                if (Outobj != Packobj)
+                {
+                    // Replaces the old pack and whatever volumes it had
+                    VolumeChannel.Move(Outobj.toPath(), Packobj.toPath(), iVolumes);
+                }
 
                 return iCountFile;   // success, return number of files packed
             }
@@ -161,4 +547,965 @@ public class MarvellousPacker
         }
     }
 
+    /////////////////////////////////////////////////////////////////////////
+    //
+    //  Class :         PackWalker
+    //  Description :   File visitor that turns every regular file into an
+    //                  entry as soon as it is visited. The entry's offset
+    //                  is the running end of the pack (header + size
+    //                  rounded up to 8 bytes), so no file list is built.
+    //                  With parallelism above 1, entries are handed to a
+    //                  work-stealing pool (files larger than
+    //                  PackFormat.SEGMENT_SIZE as several segments) and a
+    //                  semaphore bounds the tasks in flight. Compressed
+    //                  entries are always written by the walking thread.
+    //                  Offsets do not depend on the thread count, so the
+    //                  pack is byte-identical to the sequential one. In
+    //                  incremental mode unchanged entries are copied from
+    //                  the old pack on the walking thread as well.
+    //
+    /////////////////////////////////////////////////////////////////////////
+    private final class PackWalker extends SimpleFileVisitor<Path>
+    {
+        private final Path Root;                      // Directory being packed
+        private final FileChannel foobj;              // Packed file
+        private final PackCipher cipher;              // Shared cipher
+        private final SecureRandom Random = new SecureRandom();
+        private final FileChannel Prevobj;            // Old pack (incremental)
+        private Map<String, PackEntry> Previous = null; // Its reusable entries
+
+        private ByteBuffer Buffer = null;             // Walker thread chunk buffer
+        private byte Output[] = null;                 // Compressed output chunk
+        private Deflater Def = null;                  // Reused across entries
+        private DedupTable Table = null;              // Chunks stored so far
+        private SmallBatch Batch = null;              // Small entries not yet written
+        private ForkJoinPool pool = null;             // Parallel workers
+        private ThreadLocal<ByteBuffer> Buffers = null;
+        private ChunkPipeline Pipe = null;            // Sequential mode overlap
+        private Semaphore Window = null;              // Bounds queued tasks
+        private int iWindow = 0;
+        private AtomicReference<Exception> Failure = new AtomicReference<>();
+
+        long Position = 0;                            // End of entry data
+        int iCount = 0;                               // Entries written
+        List<PackEntry> Entries = new ArrayList<>();  // Kept only for the index
+
+        PackWalker(Path Root, FileChannel foobj, PackCipher cipher, FileChannel Prevobj) throws IOException
+        {
+            this.Root = Root;
+            this.foobj = foobj;
+            this.cipher = cipher;
+            this.Prevobj = Prevobj;
+
+            if (Prevobj != null)
+            {
+                PackIndex Index = PackIndex.Read(Prevobj);
+
+                // Without a directory, or with other keys, nothing is reusable
+                if (Index != null && Index.KeyCheck == PackFormat.KeyCheck(cipher))
+                {
+                    Previous = new HashMap<>();
+
+                    for (PackEntry Entry : Index.Entries)
+                    {
+                        Previous.put(Entry.Name, Entry);
+                    }
+                }
+            }
+
+            if (Parallelism > 1)
+            {
+                pool = new ForkJoinPool(Parallelism);
+                Buffers = ThreadLocal.withInitial(() -> ByteBuffer.allocate(ChunkSize));
+                iWindow = Parallelism * 4;
+                Window = new Semaphore(iWindow);
+            }
+            else if (PipelineWorkers > 0)
+            {
+                Pipe = new ChunkPipeline(PipelineWorkers, ChunkSize);
+            }
+        }
+
+        @Override
+        public FileVisitResult visitFile(Path FilePath, BasicFileAttributes Attrs) throws IOException
+        {
+            // Directories at the depth limit, links to nowhere, devices...
+            if (!Attrs.isRegularFile())
+            {
+                return FileVisitResult.CONTINUE;
+            }
+
+            long Since = PackMetrics.Now(Metrics);
+            String Name = Root.relativize(FilePath).toString().replace(File.separatorChar, '/');
+            boolean bCounter = CounterMode || Deduplicate || !(cipher instanceof BlockCipher);
+            int iFlags = (bCounter ? PackFormat.FLAG_CTR : 0) | (Algorithm << PackFormat.ALGORITHM_SHIFT);
+            long Nonce = bCounter ? Random.nextLong() : 0;
+
+            long Modified = Attrs.lastModifiedTime().toMillis();
+
+            if (Previous != null)
+            {
+                PackEntry Old = Previous.get(Name);
+
+                // Chunked entries hold references into the old pack and never match.
+                // The file is only read for its hash once the cheap checks pass
+                if (Old != null && Old.Size == Attrs.size() && Old.Modified == Modified
+                    && (Old.Flags & ~PackFormat.FLAG_DEFLATE) == iFlags
+                    && (!CompareHash || (Old.Hash >= 0 && HashFile(FilePath, GetBuffer()) == Old.Hash)))
+                {
+                    Started(Old);
+                    PackEntry Reused = Reuse(Old);
+                    Record(Reused, Modified);
+                    Finished(Reused, Since);
+                    return FileVisitResult.CONTINUE;
+                }
+            }
+
+            PackEntry Entry = new PackEntry(Name, Attrs.size(), Position,
+                                            Position + PackFormat.HeaderLength(Name, LegacyHeader, true),
+                                            iFlags, Nonce);
+            Started(Entry);
+
+            if (Deduplicate)
+            {
+                PackEntry Chunked = PackChunked(foobj, FilePath.toFile(), Entry, cipher, GetTable(),
+                                                LegacyHeader, Metrics);
+                Record(Chunked, Modified);
+                Finished(Chunked, Since);
+                return FileVisitResult.CONTINUE;
+            }
+
+            if (CompressionLevel > 0)
+            {
+                PackEntry Compressed = PackCompressed(foobj, FilePath.toFile(), Entry, cipher,
+                                                      GetDeflater(), GetBuffer(), GetOutput(),
+                                                      LegacyHeader, Metrics);
+
+                if (Compressed != null)
+                {
+                    Record(Compressed, Modified);
+                    Finished(Compressed, Since);
+                    return FileVisitResult.CONTINUE;
+                }
+            }
+
+            Record(Entry, Modified);
+
+            if (Entry.Size <= SmallBatch.SMALL_FILE_SIZE && Entry.Size <= ChunkSize)
+            {
+                // Written together with its neighbours by Flush
+                GetBatch().Add(FilePath.toFile(), Entry, Since);
+            }
+            else if (pool == null)
+            {
+                Entry.Hash = PackRange(foobj, FilePath.toFile(), Entry, 0, Entry.Size, cipher,
+                                       (Pooled == null) ? GetBuffer() : null, Pipe);
+                WriteHeader(foobj, Entry, LegacyHeader, Metrics);
+                Finished(Entry, Since);
+            }
+            else
+            {
+                Submit(FilePath.toFile(), Entry, Since);
+            }
+
+            return FileVisitResult.CONTINUE;
+        }
+
+        // Entry.Hash is set once the contents are written, maybe later
+        private void Record(PackEntry Entry, long Modified)
+        {
+            Entry.Modified = Modified;
+
+            Position = Entry.DataOffset + Entry.StoredSize();
+            iCount++;
+
+            if (WriteIndex || Incremental)
+            {
+                Entries.add(Entry);
+            }
+        }
+
+        private void Started(PackEntry Entry)
+        {
+            if (Metrics != null)
+            {
+                Metrics.EntryStarted(Entry);
+            }
+        }
+
+        private void Finished(PackEntry Entry, long Since)
+        {
+            if (Metrics != null)
+            {
+                Metrics.EntryFinished(Entry, Since);
+            }
+        }
+
+        // Copies an unchanged entry, header included, from the old pack.
+        // Headers hold no offsets, so the bytes are valid at any position;
+        // the entry keeps the header format it was written with.
+        private PackEntry Reuse(PackEntry Old) throws IOException
+        {
+            PackFormat.CheckHeader(Prevobj, Old);
+
+            long HeaderLength = Old.DataOffset - Old.HeaderOffset;
+
+            PackEntry Entry = new PackEntry(Old.Name, Old.Size, Position, Position + HeaderLength,
+                                            Old.Flags, Old.Nonce, Old.StoredSize());
+            Entry.Hash = Old.Hash;
+
+            long Tick = PackMetrics.Now(Metrics);
+
+            ChannelIO.Transfer(Prevobj, Old.HeaderOffset, HeaderLength + Old.StoredSize(),
+                               foobj, Position);
+
+            if (Metrics != null)
+            {
+                Metrics.Transferred(HeaderLength + Old.StoredSize(), Tick);
+            }
+
+            return Entry;
+        }
+
+        private ByteBuffer GetBuffer()
+        {
+            if (Buffer == null)
+            {
+                Buffer = ByteBuffer.allocate(ChunkSize);
+            }
+
+            return Buffer;
+        }
+
+        private byte[] GetOutput()
+        {
+            if (Output == null)
+            {
+                Output = new byte[ChunkSize];
+            }
+
+            return Output;
+        }
+
+        private SmallBatch GetBatch()
+        {
+            if (Batch == null)
+            {
+                Batch = new SmallBatch(foobj, cipher, LegacyHeader, ChunkSize, Metrics);
+            }
+
+            return Batch;
+        }
+
+        // Writes small entries still held back; called once the walk is done
+        void Flush() throws IOException
+        {
+            if (Batch != null)
+            {
+                Batch.Flush();
+            }
+        }
+
+        private DedupTable GetTable()
+        {
+            if (Table == null)
+            {
+                Table = new DedupTable();
+            }
+
+            return Table;
+        }
+
+        private Deflater GetDeflater()
+        {
+            if (Def == null)
+            {
+                Def = new Deflater(CompressionLevel);
+            }
+
+            return Def;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(Path FilePath, IOException eobj) throws IOException
+        {
+            throw eobj;
+        }
+
+        private void Submit(File Src, PackEntry Entry, long Since) throws IOException
+        {
+            long Start = 0;
+
+            // The last segment to complete combines the checksums and
+            // writes the header
+            long Segments = Math.max(1, (Entry.Size + PackFormat.SEGMENT_SIZE - 1) / PackFormat.SEGMENT_SIZE);
+            long Partial[] = new long[(int) Segments];
+            AtomicInteger Left = new AtomicInteger((int) Segments);
+
+            do
+            {
+                final int iSegment = (int) (Start / PackFormat.SEGMENT_SIZE);
+                final long SegStart = Start;
+                final long SegLength = Math.min(PackFormat.SEGMENT_SIZE, Entry.Size - Start);
+
+                try
+                {
+                    Window.acquire();
+                }
+                catch (InterruptedException eobj)
+                {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Packing interrupted");
+                }
+
+                ThrowFailure();
+
+                pool.execute(() ->
+                {
+                    try
+                    {
+                        Partial[iSegment] = PackRange(foobj, Src, Entry, SegStart, SegLength, cipher,
+                                                      (Pooled == null) ? Buffers.get() : null, null);
+
+                        if (Left.decrementAndGet() == 0)
+                        {
+                            Entry.Hash = PackFormat.CombineCrc(Partial, Entry.Size, PackFormat.SEGMENT_SIZE);
+                            WriteHeader(foobj, Entry, LegacyHeader, Metrics);
+                            Finished(Entry, Since);
+                        }
+                    }
+                    catch (Exception eobj)
+                    {
+                        Failure.compareAndSet(null, eobj);
+                    }
+                    finally
+                    {
+                        Window.release();
+                    }
+                });
+
+                Start += SegLength;
+            }
+            while (Start < Entry.Size);
+        }
+
+        // Waits for queued tasks and shuts the pool down
+        void Finish() throws IOException
+        {
+            if (Def != null)
+            {
+                Def.end();
+                Def = null;
+            }
+
+            if (Pipe != null)
+            {
+                Pipe.close();
+                Pipe = null;
+            }
+
+            if (pool == null)
+            {
+                return;
+            }
+
+            try
+            {
+                Window.acquire(iWindow);
+                Window.release(iWindow);
+            }
+            catch (InterruptedException eobj)
+            {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Packing interrupted");
+            }
+            finally
+            {
+                pool.shutdownNow();
+            }
+
+            ThrowFailure();
+        }
+
+        private void ThrowFailure() throws IOException
+        {
+            Exception eobj = Failure.get();
+
+            if (eobj instanceof IOException)
+            {
+                throw (IOException) eobj;
+            }
+            else if (eobj != null)
+            {
+                throw new IOException(eobj);
+            }
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : HashFile
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] Path FilePath     -> File to checksum
+    //                    [IN] ByteBuffer Buffer -> Reusable chunk buffer
+    //  Description     : CRC32C of the whole file, read chunk by chunk.
+    //  Returns         : long - Checksum as an unsigned 32-bit value
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static long HashFile(Path FilePath, ByteBuffer Buffer) throws IOException
+    {
+        CRC32C Crc = new CRC32C();
+
+        try (FileChannel fiobj = FileChannel.open(FilePath, StandardOpenOption.READ))
+        {
+            while (fiobj.read(Buffer.clear()) > 0)
+            {
+                Crc.update(Buffer.flip());
+            }
+        }
+
+        return Crc.getValue();
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : PackRange
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] FileChannel foobj -> Packed file
+    //                    [IN] File Src          -> File to pack
+    //                    [IN] PackEntry Entry   -> Entry being written
+    //                    [IN] long Start        -> First file byte (multiple of 8)
+    //                    [IN] long Length       -> Number of file bytes
+    //                    [IN] PackCipher cipher -> Cipher
+    //                    [IN] ByteBuffer Buffer -> Reusable chunk buffer, or
+    //                                              null to lease one from
+    //                                              the buffer pool
+    //                    [IN] ChunkPipeline Pipe -> Overlaps the channel
+    //                                              path, or null
+    //  Description     : Writes one range of an entry's contents using
+    //                    positional I/O only; the caller writes the header
+    //                    once every range is done. In memory-mapped mode,
+    //                    ranges of at least one chunk are encrypted between
+    //                    mappings; smaller ones, and any range whose mapping
+    //                    fails, use the channel path, through Pipe when
+    //                    the range spans more than one chunk.
+    //  Returns         : long - CRC32C of the range
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    private long PackRange(FileChannel foobj, File Src, PackEntry Entry, long Start, long Length,
+                           PackCipher cipher, ByteBuffer Buffer, ChunkPipeline Pipe) throws IOException
+    {
+        CRC32C Crc = new CRC32C();
+
+        if (Length == 0)
+        {
+            return Crc.getValue();
+        }
+
+        try (FileChannel fiobj = FileChannel.open(Src.toPath(), StandardOpenOption.READ))
+        {
+            if (MemoryMapped && Length >= ChunkSize)
+            {
+                try
+                {
+                    PackContentsMapped(fiobj, foobj, Entry, Start, Length, cipher, Crc, Metrics);
+                    return Crc.getValue();
+                }
+                catch (IOException eobj)
+                {
+                    // Mapping not possible here, fall back to the channel path
+                    Crc.reset();
+                }
+            }
+
+            if (Pipe != null && Length > ChunkSize)
+            {
+                Pipe.Pack(fiobj, foobj, Entry, Start, Length, cipher, Crc, Metrics);
+                return Crc.getValue();
+            }
+
+            if (Buffer != null)
+            {
+                PackContents(fiobj, foobj, Entry, Start, Length, cipher, Buffer, Crc, Metrics);
+                return Crc.getValue();
+            }
+
+            ByteBuffer Lease = Pooled.Acquire(ChunkSize);
+
+            try
+            {
+                PackContents(fiobj, foobj, Entry, Start, Length, cipher, Lease, Crc, Metrics);
+            }
+            finally
+            {
+                Pooled.Release(Lease);
+            }
+        }
+
+        return Crc.getValue();
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : PackCompressed
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] FileChannel foobj -> Packed file
+    //                    [IN] File Src          -> File to pack
+    //                    [IN] PackEntry Entry   -> Entry as if stored raw
+    //                    [IN] PackCipher cipher -> Cipher
+    //                    [IN] Deflater Def      -> Deflater to reuse
+    //                    [IN] ByteBuffer Buffer -> Reusable input chunk
+    //                    [IN] byte Output[]     -> Reusable output chunk
+    //                    [IN] boolean bLegacy   -> true for a text header
+    //                    [IN] PackMetrics Metrics -> Counters, or null
+    //  Description     : Trial-compresses the first PackFormat.SAMPLE_SIZE
+    //                    bytes. If they shrink enough, deflates the whole
+    //                    file, encrypting and writing each full output chunk
+    //                    right after the header, then writes the header with
+    //                    FLAG_DEFLATE, the stored size and the CRC32C of
+    //                    the uncompressed contents.
+    //  Returns         : PackEntry - The written entry, or null if the file
+    //                                should be stored raw (nothing written)
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static PackEntry PackCompressed(FileChannel foobj, File Src, PackEntry Entry, PackCipher cipher,
+                                    Deflater Def, ByteBuffer Buffer, byte Output[],
+                                    boolean bLegacy, PackMetrics Metrics) throws IOException
+    {
+        if (Entry.Size == 0)
+        {
+            return null;
+        }
+
+        byte Data[] = Buffer.array();
+        PackEntry Deflated = new PackEntry(Entry.Name, Entry.Size, Entry.HeaderOffset, Entry.DataOffset,
+                                           Entry.Flags | PackFormat.FLAG_DEFLATE, Entry.Nonce);
+        CRC32C Crc = new CRC32C();
+
+        try (FileChannel fiobj = FileChannel.open(Src.toPath(), StandardOpenOption.READ))
+        {
+            // Sample the start of the file
+            int iSample = (int) Math.min(Math.min(PackFormat.SAMPLE_SIZE, Data.length), Entry.Size);
+            long Tick = PackMetrics.Now(Metrics);
+            int iRet = ChannelIO.ReadFully(fiobj, ByteBuffer.wrap(Data, 0, iSample), 0);
+
+            if (Metrics != null)
+            {
+                Metrics.Read(iRet, Tick);
+            }
+            long Trial = 0;
+
+            Def.reset();
+            Def.setInput(Data, 0, iRet);
+            Def.finish();
+
+            while (!Def.finished())
+            {
+                Trial += Def.deflate(Output);
+            }
+
+            if (Trial * 100 > (long) iRet * PackFormat.SAMPLE_PERCENT)
+            {
+                return null;
+            }
+
+            // Compress the whole file
+            Def.reset();
+
+            long Read = 0;
+            long Written = 0;
+            int iFill = 0;
+
+            while (!Def.finished())
+            {
+                if (Def.needsInput() && Read < Entry.Size)
+                {
+                    int iWant = (int) Math.min(Data.length, Entry.Size - Read);
+                    Tick = PackMetrics.Now(Metrics);
+                    iRet = ChannelIO.ReadFully(fiobj, ByteBuffer.wrap(Data, 0, iWant), Read);
+
+                    if (Metrics != null)
+                    {
+                        Metrics.Read(iRet, Tick);
+                    }
+
+                    // A file that shrank is zero filled to match the header
+                    Arrays.fill(Data, iRet, iWant, (byte) 0);
+
+                    Crc.update(Data, 0, iWant);
+                    Def.setInput(Data, 0, iWant);
+                    Read += iWant;
+
+                    if (Read == Entry.Size)
+                    {
+                        Def.finish();
+                    }
+                }
+
+                iFill += Def.deflate(Output, iFill, Output.length - iFill);
+
+                if (iFill == Output.length)
+                {
+                    WriteEncrypted(foobj, Deflated, Output, iFill, Written, cipher, Metrics);
+
+                    Written += iFill;
+                    iFill = 0;
+                }
+            }
+
+            // Padding for last block
+            int iStored = (int) PackFormat.StoredSize(iFill);
+            Arrays.fill(Output, iFill, iStored, (byte) 0);
+
+            if (iStored > 0)
+            {
+                WriteEncrypted(foobj, Deflated, Output, iStored, Written, cipher, Metrics);
+
+                Written += iStored;
+            }
+
+            Deflated = new PackEntry(Entry.Name, Entry.Size, Entry.HeaderOffset, Entry.DataOffset,
+                                     Deflated.Flags, Entry.Nonce, Written);
+            Deflated.Hash = Crc.getValue();
+        }
+
+        WriteHeader(foobj, Deflated, bLegacy, Metrics);
+
+        return Deflated;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : PackChunked
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] FileChannel foobj  -> Packed file
+    //                    [IN] File Src           -> File to pack
+    //                    [IN] PackEntry Entry    -> Entry as if stored raw
+    //                                               (counter mode)
+    //                    [IN] PackCipher cipher  -> Cipher
+    //                    [IN] DedupTable Table   -> Chunks of this pack
+    //                    [IN] boolean bLegacy    -> true for a text header
+    //                    [IN] PackMetrics Metrics -> Counters, or null
+    //  Description     : Cuts the file into content-defined chunks and
+    //                    writes one record per chunk after the header: the
+    //                    chunk itself the first time its fingerprint is
+    //                    seen, a reference to the stored copy afterwards.
+    //                    Then writes the header with FLAG_CHUNKED, the
+    //                    stored size and the CRC32C of the contents.
+    //  Returns         : PackEntry - The written entry
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static PackEntry PackChunked(FileChannel foobj, File Src, PackEntry Entry, PackCipher cipher,
+                                 DedupTable Table, boolean bLegacy, PackMetrics Metrics) throws IOException
+    {
+        PackEntry Chunked = new PackEntry(Entry.Name, Entry.Size, Entry.HeaderOffset, Entry.DataOffset,
+                                          Entry.Flags | PackFormat.FLAG_CHUNKED, Entry.Nonce);
+
+        byte Window[] = Table.Window;
+        byte Record[] = Table.Record;
+        ByteBuffer Descriptor = ByteBuffer.wrap(Record, 0, DedupTable.RECORD_SIZE);
+
+        CRC32C Crc = new CRC32C();
+
+        long Read = 0;
+        long Written = 0;
+        int iFill = 0;
+
+        try (FileChannel fiobj = FileChannel.open(Src.toPath(), StandardOpenOption.READ))
+        {
+            while (Read < Entry.Size || iFill > 0)
+            {
+                // Keep a full window so cut points do not depend on read sizes
+                int iWant = (int) Math.min(Window.length - iFill, Entry.Size - Read);
+
+                if (iWant > 0)
+                {
+                    long Tick = PackMetrics.Now(Metrics);
+                    int iRet = ChannelIO.ReadFully(fiobj, ByteBuffer.wrap(Window, iFill, iWant), Read);
+
+                    if (Metrics != null)
+                    {
+                        Metrics.Read(iRet, Tick);
+                    }
+
+                    // A file that shrank is zero filled to match the header
+                    Arrays.fill(Window, iFill + iRet, iFill + iWant, (byte) 0);
+
+                    Crc.update(Window, iFill, iWant);
+                    iFill += iWant;
+                    Read += iWant;
+                }
+
+                int iCut = DedupTable.NextCut(Window, iFill);
+                ByteBuffer Key = Table.Fingerprint(Window, iCut);
+                DedupTable.Ref Stored = Table.Find(Key);
+                int iRecord = DedupTable.RECORD_SIZE;
+
+                Descriptor.clear();
+
+                if (Stored != null)
+                {
+                    // Same rule the unpacker applies when reading it back
+                    if (!DedupTable.ValidReference(Stored.Offset, (int) PackFormat.StoredSize(iCut),
+                                                   Chunked.DataOffset + Written))
+                    {
+                        throw new IOException("Chunk reference out of order : " + Entry.Name);
+                    }
+
+                    Descriptor.putInt(DedupTable.KIND_REF).putInt(iCut)
+                              .putLong(Stored.Offset).putLong(Stored.Nonce).putLong(Stored.Counter);
+
+                    Table.Duplicate += iCut;
+                }
+                else
+                {
+                    int iStored = (int) PackFormat.StoredSize(iCut);
+                    long DataStart = Written + DedupTable.RECORD_SIZE;
+
+                    Descriptor.putInt(DedupTable.KIND_NEW).putInt(iCut).putLong(0).putLong(0).putLong(0);
+
+                    System.arraycopy(Window, 0, Record, DedupTable.RECORD_SIZE, iCut);
+                    Arrays.fill(Record, DedupTable.RECORD_SIZE + iCut, DedupTable.RECORD_SIZE + iStored, (byte) 0);
+                    iRecord += iStored;
+
+                    Table.Add(Key, new DedupTable.Ref(Chunked.DataOffset + DataStart, Chunked.Nonce,
+                                                      DataStart / PackFormat.BLOCK_SIZE));
+                    Table.Unique += iCut;
+                }
+
+                WriteEncrypted(foobj, Chunked, Record, iRecord, Written, cipher, Metrics);
+                Written += iRecord;
+
+                // Slide the rest of the window down
+                System.arraycopy(Window, iCut, Window, 0, iFill - iCut);
+                iFill -= iCut;
+            }
+        }
+
+        Chunked = new PackEntry(Entry.Name, Entry.Size, Entry.HeaderOffset, Entry.DataOffset,
+                                Chunked.Flags, Entry.Nonce, Written);
+        Chunked.Hash = Crc.getValue();
+
+        WriteHeader(foobj, Chunked, bLegacy, Metrics);
+
+        return Chunked;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : WriteEncrypted
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] FileChannel foobj   -> Packed file
+    //                    [IN] PackEntry Entry     -> Entry being written
+    //                    [IN OUT] byte Data[]     -> Stored bytes, encrypted
+    //                                                in place
+    //                    [IN] int iLength         -> Length (multiple of 8)
+    //                    [IN] long Start          -> Offset within the
+    //                                                stored bytes
+    //                    [IN] PackCipher cipher   -> Cipher
+    //                    [IN] PackMetrics Metrics -> Counters, or null
+    //  Description     : Encrypts one chunk of stored bytes and writes it
+    //                    at its place after the header.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static void WriteEncrypted(FileChannel foobj, PackEntry Entry, byte Data[], int iLength, long Start,
+                               PackCipher cipher, PackMetrics Metrics) throws IOException
+    {
+        long Tick = PackMetrics.Now(Metrics);
+
+        PackFormat.EncryptChunk(cipher, Entry, Data, iLength, Start);
+
+        if (Metrics != null)
+        {
+            Tick = Metrics.Encrypted(iLength, Tick);
+        }
+
+        ChannelIO.WriteFully(foobj, ByteBuffer.wrap(Data, 0, iLength), Entry.DataOffset + Start);
+
+        if (Metrics != null)
+        {
+            Metrics.Written(iLength, Tick);
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : WriteHeader
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] FileChannel foobj   -> Packed file
+    //                    [IN] PackEntry Entry     -> Entry to describe
+    //                    [IN] boolean bLegacy     -> true for a text header
+    //                    [IN] PackMetrics Metrics -> Counters, or null
+    //  Description     : Writes the entry's header at its offset.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static void WriteHeader(FileChannel foobj, PackEntry Entry, boolean bLegacy,
+                            PackMetrics Metrics) throws IOException
+    {
+        long Tick = PackMetrics.Now(Metrics);
+        byte Header[] = PackFormat.BuildHeader(Entry, bLegacy);
+
+        ChannelIO.WriteFully(foobj, ByteBuffer.wrap(Header), Entry.HeaderOffset);
+
+        if (Metrics != null)
+        {
+            Metrics.Written(Header.length, Tick);
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : PackContentsMapped
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] FileChannel fiobj -> Source file
+    //                    [IN] FileChannel foobj -> Packed file (read/write)
+    //                    [IN] PackEntry Entry   -> Entry being written
+    //                    [IN] long Start        -> First file byte (multiple of 8)
+    //                    [IN] long Length       -> Number of file bytes
+    //                    [IN] PackCipher cipher -> Cipher
+    //                    [IN OUT] CRC32C Crc    -> Updated with the range
+    //                    [IN] PackMetrics Metrics -> Counters, or null
+    //  Description     : Maps the source range and the matching region of
+    //                    the pack in windows of at most PackFormat.MAP_WINDOW
+    //                    bytes, checksums each source window and encrypts
+    //                    it from one mapping into the other. A final
+    //                    partial block is padded through a small array.
+    //                    Page faults are counted as cipher time.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static void PackContentsMapped(FileChannel fiobj, FileChannel foobj, PackEntry Entry,
+                                   long Start, long Length, PackCipher cipher,
+                                   CRC32C Crc, PackMetrics Metrics) throws IOException
+    {
+        if (fiobj.size() < Start + Length)
+        {
+            throw new IOException("File shrank while packing");
+        }
+
+        long Full = Length & ~(long) (PackFormat.BLOCK_SIZE - 1);
+        long Done = 0;
+
+        while (Done < Full)
+        {
+            long Window = Math.min(PackFormat.MAP_WINDOW, Full - Done);
+            long Tick = PackMetrics.Now(Metrics);
+
+            MappedByteBuffer Src = fiobj.map(FileChannel.MapMode.READ_ONLY, Start + Done, Window);
+            MappedByteBuffer Dst = foobj.map(FileChannel.MapMode.READ_WRITE,
+                                             Entry.DataOffset + Start + Done, Window);
+
+            Crc.update(Src);
+            Src.rewind();
+
+            PackFormat.EncryptMapped(cipher, Entry, Src, Dst, Start + Done);
+
+            if (Metrics != null)
+            {
+                Metrics.Transferred(Window, Metrics.Encrypted(Window, Tick));
+            }
+
+            Done += Window;
+        }
+
+        int iTail = (int) (Length - Full);
+
+        if (iTail > 0)
+        {
+            byte Block[] = new byte[PackFormat.BLOCK_SIZE];
+            long Tick = PackMetrics.Now(Metrics);
+
+            ChannelIO.ReadFully(fiobj, ByteBuffer.wrap(Block, 0, iTail), Start + Full);
+            Crc.update(Block, 0, iTail);
+
+            PackFormat.EncryptChunk(cipher, Entry, Block, Block.length, Start + Full);
+            ChannelIO.WriteFully(foobj, ByteBuffer.wrap(Block), Entry.DataOffset + Start + Full);
+
+            if (Metrics != null)
+            {
+                Metrics.Transferred(Block.length, Metrics.Encrypted(Block.length, Tick));
+            }
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : PackContents
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] FileChannel fiobj -> Source file
+    //                    [IN] FileChannel foobj -> Packed file
+    //                    [IN] PackEntry Entry   -> Entry being written
+    //                    [IN] long Start        -> First file byte (multiple of 8)
+    //                    [IN] long Length       -> Number of file bytes
+    //                    [IN] PackCipher cipher -> Cipher
+    //                    [IN] ByteBuffer Buffer -> Reusable chunk buffer
+    //                    [IN OUT] CRC32C Crc    -> Updated with the range
+    //                    [IN] PackMetrics Metrics -> Counters, or null
+    //  Description     : Copies a range of the source in whole chunks,
+    //                    checksumming and then encrypting each chunk in
+    //                    place. The last chunk is
+    //                    zero padded to 8 bytes. If the file shrank after
+    //                    its size was taken, the gap is zero filled so the
+    //                    pack still matches its header.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static void PackContents(FileChannel fiobj, FileChannel foobj, PackEntry Entry, long Start, long Length,
+                             PackCipher cipher, ByteBuffer Buffer, CRC32C Crc,
+                             PackMetrics Metrics) throws IOException
+    {
+        long Done = 0;
+
+        while (Done < Length)
+        {
+            int iWant = (int) Math.min(Buffer.capacity(), Length - Done);
+            long Tick = PackMetrics.Now(Metrics);
+
+            Buffer.clear().limit(iWant);
+            int iRet = ChannelIO.ReadFully(fiobj, Buffer, Start + Done);
+
+            // Padding for last block (or for a file that shrank)
+            int iStored = (int) PackFormat.StoredSize(iWant);
+            Buffer.limit(iStored);
+
+            while (Buffer.hasRemaining())
+            {
+                Buffer.put((byte) 0);
+            }
+
+            if (Metrics != null)
+            {
+                Tick = Metrics.Read(iRet, Tick);
+            }
+
+            Crc.update(Buffer.position(0).limit(iWant));
+            Buffer.position(0).limit(iStored);
+            PackFormat.EncryptMapped(cipher, Entry, Buffer, Buffer, Start + Done);
+
+            if (Metrics != null)
+            {
+                Tick = Metrics.Encrypted(iStored, Tick);
+            }
+
+            ChannelIO.WriteFully(foobj, Buffer, Entry.DataOffset + Start + Done);
+
+            if (Metrics != null)
+            {
+                Metrics.Written(iStored, Tick);
+            }
+
+            Done += iWant;
+        }
+    }
+
 }
@@ -1,5 +1,6 @@
-import MarvellousPackerUnpacker.MarvellousPacker;
-import MarvellousPackerUnpacker.MarvellousUnpacker;
+import MarvellousPackerUnpacker.BatchRunner;
+import MarvellousPackerUnpacker.JobScheduler;
+import MarvellousPackerUnpacker.PackJob;
 
 import javax.swing.*;
 import java.awt.event.*;
@@ -27,16 +28,26 @@ class MarvellousPackerUnpackerMain
     //  Function Date   : 16/09/2025
     //  Function Author : Rutik Shivaji Thitame
     //  Parameters      : [IN] String[] A
-    //                    Command-line arguments (not used in this program)
+    //                    Command-line arguments; with any present the program
+    //                    runs headless through BatchRunner (--batch ...)
     //  Description     : Entry point for the GUI application. Creates a JFrame,
     //                    initializes tabs (Packer & Unpacker), and sets up
-    //                    event handlers for file packing and unpacking.
+    //                    event handlers for file packing and unpacking. The
+    //                    work runs on a JobScheduler, off the event thread.
     //  Returns         : void
     //
     ///////////////////////////////////////////////////////////////////////////////
     /// 
     public static void main(String A[])
     {
+        if (A.length > 0)
+        {
+            System.exit(BatchRunner.Run(A));
+        }
+
+        JobScheduler Scheduler = new JobScheduler(Runtime.getRuntime().availableProcessors(), 2);
+        int JobCount[] = { 0 };
+
         JFrame fobj = new JFrame("Marvellous Packer-Unpacker");
 
         // Buttons
@@ -128,29 +139,37 @@ class MarvellousPackerUnpackerMain
                 int key2 = Integer.parseInt(strkey2);
 
 
-                MarvellousPacker mpobj = new MarvellousPacker(DirName, PackName,key1,key2);
-                int result = mpobj.PackingActivity();
-
-                switch (result) {
-                    case -1:
-                        JOptionPane.showMessageDialog(fobj,"Error: Pack file already exists!");
-                        break;
-                    case -2:
-                        JOptionPane.showMessageDialog(fobj,"Error: Directory not found!");
-                        break;
-                    case -3:
-                        JOptionPane.showMessageDialog(fobj,"Error: No files in directory!");
-                        break;
-                    case -99:
-                        JOptionPane.showMessageDialog(fobj,"Error: Unknown exception occurred!");
-                        break;
-                    default:
-                        JOptionPane.showMessageDialog(fobj,"Packing successful! Files packed: " + result);
-                        dirField.setText("");
-                        packField1.setText("");
-                        key1Field1.setText("");
-                        key2Field2.setText("");
-                }
+                PackJob Job = PackJob.Pack("pack" + (++JobCount[0]), DirName, PackName, key1, key2);
+
+                bobj1.setEnabled(false);
+
+                Scheduler.Submit(Job).thenAccept(Result -> SwingUtilities.invokeLater(() ->
+                {
+                    int result = Result.GetCode();
+
+                    bobj1.setEnabled(true);
+
+                    switch (result) {
+                        case -1:
+                            JOptionPane.showMessageDialog(fobj,"Error: Pack file already exists!");
+                            break;
+                        case -2:
+                            JOptionPane.showMessageDialog(fobj,"Error: Directory not found!");
+                            break;
+                        case -3:
+                            JOptionPane.showMessageDialog(fobj,"Error: No files in directory!");
+                            break;
+                        case -99:
+                            JOptionPane.showMessageDialog(fobj,"Error: Unknown exception occurred!");
+                            break;
+                        default:
+                            JOptionPane.showMessageDialog(fobj,"Packing successful! Files packed: " + result);
+                            dirField.setText("");
+                            packField1.setText("");
+                            key1Field1.setText("");
+                            key2Field2.setText("");
+                    }
+                }));
             }
         });
 
@@ -177,23 +196,34 @@ class MarvellousPackerUnpackerMain
                 int key1 = Integer.parseInt(strkey1);
                 int key2 = Integer.parseInt(strkey2);
 
-                MarvellousUnpacker muobj = new MarvellousUnpacker(PackName,key1,key2);
-                int result = muobj.UnpakingActivity();
-
-                switch (result) {
-                    case -1:
-                        JOptionPane.showMessageDialog(fobj,"Error: Pack file not found!");
-                        break;
-                    case -99:
-                        JOptionPane.showMessageDialog(fobj,"Error: Unknown exception occurred!");
-                        break;
-                    default:
-                        JOptionPane.showMessageDialog(fobj,"Unpacking successful! Files unpacked: " + result);
-                        dirField.setText("");
-                        packField2.setText("");
-                        key1Field2.setText("");
-                        key2Field2.setText("");
-                }
+                PackJob Job = PackJob.Unpack("unpack" + (++JobCount[0]), PackName, key1, key2);
+
+                bobj2.setEnabled(false);
+
+                Scheduler.Submit(Job).thenAccept(Result -> SwingUtilities.invokeLater(() ->
+                {
+                    int result = Result.GetCode();
+
+                    bobj2.setEnabled(true);
+
+                    switch (result) {
+                        case -1:
+                            JOptionPane.showMessageDialog(fobj,"Error: Pack file not found!");
+                            break;
+                        case -5:
+                            JOptionPane.showMessageDialog(fobj,"Error: Checksum mismatch (corrupt pack or wrong keys)!");
+                            break;
+                        case -99:
+                            JOptionPane.showMessageDialog(fobj,"Error: Unknown exception occurred!");
+                            break;
+                        default:
+                            JOptionPane.showMessageDialog(fobj,"Unpacking successful! Files unpacked: " + result);
+                            dirField.setText("");
+                            packField2.setText("");
+                            key1Field2.setText("");
+                            key2Field2.setText("");
+                    }
+                }));
             }
         });
 
@@ -0,0 +1,581 @@
+package MarvellousPackerUnpacker;
+
+import java.util.*;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32C;
+
+/////////////////////////////////////////////////////////////////////////
+//
+//  Class :         MarvellousRekeyer
+//  Description :   Re-encrypts an existing pack under a new pair of
+//                  keys in a single pass, without writing any plaintext
+//                  to disk. Every chunk of stored bytes is decrypted
+//                  with the old keys and encrypted again with the new
+//                  ones in the same buffer, at the same offset and with
+//                  the same nonce and counter, so headers, chunk
+//                  references and the layout stay valid and are copied
+//                  unchanged. The new pack is written next to the old
+//                  one and renamed over it at the end.
+//  Author :        Rutik Shivaji Thitame
+//
+/////////////////////////////////////////////////////////////////////////
+
+public class MarvellousRekeyer
+{
+    private String PackName;   // Pack to re-encrypt
+    private int key1;          // Current first key
+    private int key2;          // Current second key
+    private int newkey1;       // New first key
+    private int newkey2;       // New second key
+    private int ChunkSize = PackFormat.DEFAULT_CHUNK_SIZE;   // Bytes per I/O call
+    private int Parallelism = 1;                             // Worker threads
+    private PackMetrics Metrics = null;                      // Counters and listeners
+    private boolean Force = false;                           // Rewrite without a key proof
+
+    private static final long PROOF_BYTES = 65536;           // Contents restored to prove the keys
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : MarvellousRekeyer (Constructor)
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] String PackName -> Packed file to re-encrypt
+    //                    [IN] int key1        -> Current first key
+    //                    [IN] int key2        -> Current second key
+    //                    [IN] int newkey1     -> New first key
+    //                    [IN] int newkey2     -> New second key
+    //  Description     : Initializes the pack name and both key pairs.
+    //  Returns         : None
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public MarvellousRekeyer(String PackName, int key1, int key2, int newkey1, int newkey2)
+    {
+        this.PackName = PackName;
+        this.key1 = key1;
+        this.key2 = key2;
+        this.newkey1 = newkey1;
+        this.newkey2 = newkey2;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : SetChunkSize
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] int size -> Bytes read, re-encrypted and
+    //                                     written per I/O call (multiple of 8)
+    //  Description     : Overrides the default 1 MiB chunk size.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void SetChunkSize(int size)
+    {
+        this.ChunkSize = PackFormat.CheckChunkSize(size);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : SetParallelism
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] int level -> Number of worker threads (>= 1)
+    //  Description     : Re-encrypts entries, and segments of large ones,
+    //                    concurrently when level is above 1. The pack is
+    //                    identical either way.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void SetParallelism(int level)
+    {
+        if (level < 1)
+        {
+            throw new IllegalArgumentException("Invalid parallelism : " + level);
+        }
+
+        this.Parallelism = level;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : SetForce
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] boolean bForce -> true to rewrite unchecked
+    //  Description     : Rewrites a pack even when nothing in it can prove
+    //                    the current keys (legacy packs without a central
+    //                    directory, checksums or compressed entries). With
+    //                    wrong keys the contents are then lost for good.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void SetForce(boolean bForce)
+    {
+        this.Force = bForce;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : SetMetrics
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] PackMetrics Metrics -> Counters, or null
+    //  Description     : Counts bytes and time per stage and reports every
+    //                    entry to the metrics' listeners.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void SetMetrics(PackMetrics Metrics)
+    {
+        this.Metrics = Metrics;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : RekeyingActivity
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : None
+    //  Description     : Scans the headers, then re-encrypts the stored
+    //                    bytes of every entry (compressed and chunked ones
+    //                    included, as they are one stream each) while the
+    //                    headers are copied with transferTo. A central
+    //                    directory is written again with the new key
+    //                    check. Before anything is written the current keys
+    //                    must be proven: by the directory's key check or,
+    //                    without one, by restoring a few entries in memory
+    //                    against their CRC32C or through the inflater. Raw
+    //                    entries are also checked against their CRC32C
+    //                    while they pass through. On a mismatch the old
+    //                    pack is left as it was. A split pack keeps its
+    //                    volume size.
+    //  Returns         : int
+    //                    >0  -> Number of entries re-encrypted
+    //                    -1  -> Packed file not found
+    //                    -3  -> No entries in the pack
+    //                    -5  -> Current keys do not match the pack
+    //                    -6  -> Current keys cannot be checked (see
+    //                           SetForce)
+    //                    -99 -> Unknown exception
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public int RekeyingActivity()
+    {
+        try
+        {
+            // Every engine a header may name, under both key pairs
+            CipherSet Old = new CipherSet(key1, key2);
+            CipherSet New = new CipherSet(newkey1, newkey2);
+
+            File Packobj = new File(PackName);
+
+            if (!Packobj.exists())
+            {
+                return -1;
+            }
+
+            File Outobj = new File(PackName + ".tmp");
+            VolumeChannel.Delete(Outobj.toPath());
+
+            boolean bDone = false;
+            int iVolumes = 0;
+            int iCount;
+
+            try (FileChannel fiobj = VolumeChannel.Open(Packobj.toPath()))
+            {
+                PackIndex Index = PackIndex.Read(fiobj);
+                int iAlgorithm = 0;
+
+                if (Index != null)
+                {
+                    iAlgorithm = KeyCheckAlgorithm(Index.KeyCheck);
+
+                    if (iAlgorithm < 0)
+                    {
+                        return -5;
+                    }
+                }
+
+                List<PackEntry> Entries = (Index != null) ? Index.Entries : PackFormat.ScanEntries(fiobj);
+                iCount = Entries.size();
+
+                if (iCount == 0)
+                {
+                    return -3;
+                }
+
+                // Without a directory there is no key check; use the pack's engine
+                if (Index == null)
+                {
+                    iAlgorithm = PackFormat.Algorithm(Entries.get(0).Flags);
+
+                    int iProof = ProveKeys(fiobj, Entries, Old);
+
+                    if (iProof < 0 || (iProof == 0 && !Force))
+                    {
+                        return (iProof < 0) ? -5 : -6;
+                    }
+                }
+
+                if (Metrics != null)
+                {
+                    Metrics.Expect(iCount);
+                }
+
+                // Same volume size as the pack it replaces
+                VolumeChannel Volumes = (fiobj instanceof VolumeChannel)
+                                        ? VolumeChannel.Create(Outobj.toPath(), ((VolumeChannel) fiobj).GetVolumeSize())
+                                        : null;
+
+                try (FileChannel foobj = (Volumes != null) ? Volumes : FileChannel.open(Outobj.toPath(),
+                        StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE))
+                {
+                    long Position = RekeyAll(fiobj, foobj, Entries, Old, New);
+
+                    if (Index != null)
+                    {
+                        ChannelIO.Transfer(fiobj, Position, Index.DirectoryOffset - Position, foobj, Position);
+                        PackIndex.Write(foobj, Index.DirectoryOffset, Entries,
+                                        PackFormat.KeyCheck(PackCipher.Create(iAlgorithm, newkey1, newkey2)));
+                    }
+                    else
+                    {
+                        ChannelIO.Transfer(fiobj, Position, fiobj.size() - Position, foobj, Position);
+                    }
+
+                    foobj.force(true);
+
+                    if (Volumes != null)
+                    {
+                        iVolumes = Volumes.Finish();
+                    }
+
+                    bDone = true;
+                }
+            }
+            finally
+            {
+                if (!bDone)
+                {
+                    VolumeChannel.Delete(Outobj.toPath());
+                }
+            }
+
+            // Replaces the old pack and whatever volumes it had
+            VolumeChannel.Move(Outobj.toPath(), Packobj.toPath(), iVolumes);
+
+            return iCount;  // success, number of entries re-encrypted
+        }
+        catch (ChecksumException eobj)
+        {
+            eobj.printStackTrace();
+            return -5;  // wrong keys (or a corrupt pack)
+        }
+        catch (Exception eobj)
+        {
+            eobj.printStackTrace();
+            return -99;
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : ProveKeys
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] FileChannel fiobj       -> Current pack
+    //                    [IN] List<PackEntry> Entries -> Its entries
+    //                    [IN] CipherSet Old           -> Engines, current keys
+    //  Description     : Restores entries that can tell right keys from
+    //                    wrong ones, without writing them: those with a
+    //                    CRC32C first, then deflated ones, which wrong keys
+    //                    turn into data the inflater rejects. Smallest
+    //                    first, until PROOF_BYTES of contents are checked,
+    //                    since a few bytes can restore alike under other
+    //                    keys.
+    //  Returns         : int
+    //                    1  -> The keys restored every entry checked
+    //                    0  -> No entry can be checked
+    //                    -1 -> An entry does not restore under the keys
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    private int ProveKeys(FileChannel fiobj, List<PackEntry> Entries, CipherSet Old) throws IOException
+    {
+        List<PackEntry> Proofs = new ArrayList<>();
+
+        for (PackEntry Entry : Entries)
+        {
+            // Empty entries restore the same under any keys
+            if (Entry.Size > 0 && (Entry.Hash >= 0 || (Entry.Flags & PackFormat.FLAG_DEFLATE) != 0))
+            {
+                Proofs.add(Entry);
+            }
+        }
+
+        Proofs.sort(Comparator.comparing((PackEntry Entry) -> Entry.Hash < 0)
+                              .thenComparingLong(PackEntry::StoredSize));
+
+        ByteBuffer Buffer = ByteBuffer.allocate(ChunkSize);
+        long Checked = 0;
+
+        for (PackEntry Entry : Proofs)
+        {
+            if (Checked >= PROOF_BYTES)
+            {
+                break;
+            }
+
+            CRC32C Crc = new CRC32C();
+            PackCipher cipher = Old.For(Entry);
+
+            try
+            {
+                if ((Entry.Flags & PackFormat.FLAG_CHUNKED) != 0)
+                {
+                    MarvellousUnpacker.UnpackChunked(fiobj, null, Entry, cipher, Crc, null);
+                }
+                else if ((Entry.Flags & PackFormat.FLAG_DEFLATE) != 0)
+                {
+                    MarvellousUnpacker.InflateContents(fiobj, null, Entry, cipher, Buffer.clear(), Crc, null);
+                }
+                else
+                {
+                    MarvellousUnpacker.UnpackContents(fiobj, null, Entry, 0, Entry.Size, cipher,
+                                                      Buffer.clear(), Crc, null);
+                }
+
+                PackFormat.CheckCrc(Entry, Crc.getValue());
+            }
+            catch (IOException eobj)
+            {
+                // Checksum mismatch, or a stream that does not decode or runs short
+                return -1;
+            }
+
+            Checked += Entry.Size;
+        }
+
+        return Proofs.isEmpty() ? 0 : 1;
+    }
+
+    // Engine whose key check under the current keys is recorded, or -1
+    private int KeyCheckAlgorithm(long KeyCheck)
+    {
+        for (int i = 0; i < PackCipher.ALGORITHM_COUNT; i++)
+        {
+            if (PackFormat.KeyCheck(PackCipher.Create(i, key1, key2)) == KeyCheck)
+            {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : RekeyAll
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] FileChannel fiobj     -> Current pack
+    //                    [IN] FileChannel foobj     -> New pack
+    //                    [IN] List<PackEntry> Entries -> Entries in pack order
+    //                    [IN] CipherSet Old         -> Engines, current keys
+    //                    [IN] CipherSet New         -> Engines, new keys
+    //  Description     : Copies each header (and anything before it) on
+    //                    the calling thread and re-encrypts the stored
+    //                    bytes in segments of PackFormat.SEGMENT_SIZE, on
+    //                    a pool when parallelism is above 1. Every
+    //                    segment writes at its own offset.
+    //  Returns         : long - End of the last entry
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    private long RekeyAll(FileChannel fiobj, FileChannel foobj, List<PackEntry> Entries,
+                          CipherSet Old, CipherSet New) throws Exception
+    {
+        ForkJoinPool pool = (Parallelism > 1) ? new ForkJoinPool(Parallelism) : null;
+
+        // One chunk buffer per worker thread
+        ThreadLocal<ByteBuffer> Buffers = ThreadLocal.withInitial(() -> ByteBuffer.allocate(ChunkSize));
+
+        try
+        {
+            List<ForkJoinTask<Void>> Tasks = new ArrayList<>();
+            long Position = 0;
+
+            for (PackEntry Entry : Entries)
+            {
+                if (Entry.HeaderOffset < Position)
+                {
+                    throw new IOException("Entries overlap : " + Entry.Name);
+                }
+
+                long Tick = PackMetrics.Now(Metrics);
+                ChannelIO.Transfer(fiobj, Position, Entry.DataOffset - Position, foobj, Position);
+
+                if (Metrics != null)
+                {
+                    Metrics.Transferred(Entry.DataOffset - Position, Tick);
+                }
+
+                Position = Entry.DataOffset + Entry.StoredSize();
+
+                long Since = PackMetrics.Now(Metrics);
+                long Segments = Math.max(1, (Entry.StoredSize() + PackFormat.SEGMENT_SIZE - 1) / PackFormat.SEGMENT_SIZE);
+                long Partial[] = new long[(int) Segments];
+                AtomicInteger Left = new AtomicInteger((int) Segments);
+                PackCipher From = Old.For(Entry);
+                PackCipher To = New.For(Entry);
+
+                if (Metrics != null)
+                {
+                    Metrics.EntryStarted(Entry);
+                }
+
+                for (int iSegment = 0; iSegment < Segments; iSegment++)
+                {
+                    final int i = iSegment;
+                    final long SegStart = iSegment * PackFormat.SEGMENT_SIZE;
+                    final long SegLength = Math.min(PackFormat.SEGMENT_SIZE, Entry.StoredSize() - SegStart);
+
+                    ForkJoinTask<Void> Task = ForkJoinTask.adapt(() ->
+                    {
+                        Partial[i] = RekeyRange(fiobj, foobj, Entry, SegStart, SegLength, From, To, Buffers.get());
+
+                        // The last segment to complete checks and finishes the entry
+                        if (Left.decrementAndGet() == 0)
+                        {
+                            if ((Entry.Flags & PackFormat.FLAG_STORED) == 0)
+                            {
+                                PackFormat.CheckCrc(Entry, PackFormat.CombineCrc(Partial, Entry.Size,
+                                                                                 PackFormat.SEGMENT_SIZE));
+                            }
+
+                            if (Metrics != null)
+                            {
+                                Metrics.EntryFinished(Entry, Since);
+                            }
+                        }
+
+                        return null;
+                    });
+
+                    if (pool == null)
+                    {
+                        Task.quietlyInvoke();
+                        Await(Task);
+                    }
+                    else
+                    {
+                        Tasks.add(pool.submit(Task));
+                    }
+                }
+            }
+
+            // Wait for all tasks; rethrows the first failure
+            for (ForkJoinTask<Void> Task : Tasks)
+            {
+                Await(Task);
+            }
+
+            return Position;
+        }
+        finally
+        {
+            if (pool != null)
+            {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    // Waits for a task and rethrows its failure, unwrapped down to the
+    // IOException the pool wrapped in RuntimeException
+    private static void Await(ForkJoinTask<Void> Task) throws Exception
+    {
+        try
+        {
+            Task.get();
+        }
+        catch (ExecutionException eobj)
+        {
+            Throwable Cause = eobj.getCause();
+
+            while (Cause instanceof RuntimeException && Cause.getCause() != null)
+            {
+                Cause = Cause.getCause();
+            }
+
+            if (Cause instanceof IOException)
+            {
+                throw (IOException) Cause;
+            }
+
+            throw eobj;
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : RekeyRange
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] FileChannel fiobj -> Current pack
+    //                    [IN] FileChannel foobj -> New pack
+    //                    [IN] PackEntry Entry   -> Entry being re-encrypted
+    //                    [IN] long Start        -> First stored byte (multiple of 8)
+    //                    [IN] long Length       -> Number of stored bytes
+    //                    [IN] PackCipher From   -> Engine with the current keys
+    //                    [IN] PackCipher To     -> Same engine, new keys
+    //                    [IN] ByteBuffer Buffer -> Reusable chunk buffer
+    //  Description     : Decrypts and re-encrypts one range chunk by chunk
+    //                    with positional I/O only. The plaintext never
+    //                    leaves the buffer.
+    //  Returns         : long - CRC32C of the range's original contents
+    //                           (meaningful for raw entries only)
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    private long RekeyRange(FileChannel fiobj, FileChannel foobj, PackEntry Entry, long Start, long Length,
+                            PackCipher From, PackCipher To, ByteBuffer Buffer) throws IOException
+    {
+        CRC32C Crc = new CRC32C();
+        long End = Start + Length;
+        int iLength;
+
+        for (long Pos = Start; Pos < End; Pos += iLength)
+        {
+            iLength = (int) Math.min(Buffer.capacity(), End - Pos);
+
+            MarvellousUnpacker.ReadDecrypted(fiobj, Entry, Buffer, iLength, Pos, From, Metrics);
+
+            // Original bytes only (not the padding of the last block)
+            if ((Entry.Flags & PackFormat.FLAG_STORED) == 0)
+            {
+                Crc.update(Buffer.limit((int) Math.max(0, Math.min(iLength, Entry.Size - Pos))));
+            }
+
+            long Tick = PackMetrics.Now(Metrics);
+            PackFormat.EncryptMapped(To, Entry, Buffer.position(0).limit(iLength), Buffer, Pos);
+
+            if (Metrics != null)
+            {
+                Tick = Metrics.Encrypted(iLength, Tick);
+            }
+
+            ChannelIO.WriteFully(foobj, Buffer, Entry.DataOffset + Pos);
+
+            if (Metrics != null)
+            {
+                Metrics.Written(iLength, Tick);
+            }
+        }
+
+        return Crc.getValue();
+    }
+}
@@ -1,17 +1,36 @@
 package MarvellousPackerUnpacker;
-import MarvellousPackerUnpacker.BlowfishEncryption;
 
 import java.util.*;
 import java.io.*;
-import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32C;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
 
 /////////////////////////////////////////////////////////////////////////
 //
 //  Class :         MarvellousUnpacker
 //  Description :   Extracts individual files from a packed file created 
 //                  by MarvellousPacker. Each file is restored by reading 
-//                  its 100-byte header (filename + size) and decrypting 
-//                  its contents using Blowfish encryption.
+//                  its header (filename + size, binary or legacy text)
+//                  and decrypting its contents with the cipher named in
+//                  that header (Blowfish or AES). Contents are checked
+//                  against the CRC32C recorded at packing time, if any;
+//                  VerifyActivity does only that, without writing files.
+//                  A pack split into volumes is read through its
+//                  manifest, all volumes at once when parallel.
 //  Author :        Rutik Shivaji Thitame
 //
 /////////////////////////////////////////////////////////////////////////
@@ -21,6 +40,15 @@ public class MarvellousUnpacker
     private String PackName;   // Name of packed file to unpack
     private int key1;          // First encryption key
     private int key2;          // Second encryption key
+    private int ChunkSize = PackFormat.DEFAULT_CHUNK_SIZE;   // Bytes per I/O call
+    private int Parallelism = 1;                             // Worker threads
+    private Path OutputDir = Paths.get("");                  // Where entries are restored
+    private boolean MemoryMapped = false;                    // Map files instead of copying
+    private PathMatcher Filter = null;                       // Entries to restore, null for all
+    private BufferPool Pooled = null;                        // Shared chunk buffers
+    private int PipelineWorkers = 0;                         // Cipher stages, 0 = no pipeline
+    private PackMetrics Metrics = null;                      // Counters and listeners
+    private final Set<String> Corrupt = Collections.synchronizedSet(new LinkedHashSet<>()); // Last verify
 
     /////////////////////////////////////////////////////////////////////////////
     //
@@ -42,19 +70,190 @@ public class MarvellousUnpacker
         this.key2 = key2;
     }
 
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : SetChunkSize
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] int size -> Bytes read, decrypted and written
+    //                                     per I/O call (multiple of 8)
+    //  Description     : Overrides the default 1 MiB chunk size.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void SetChunkSize(int size)
+    {
+        this.ChunkSize = PackFormat.CheckChunkSize(size);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : SetParallelism
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] int level -> Number of worker threads (>= 1)
+    //  Description     : Extracts entries concurrently when level is above 1.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void SetParallelism(int level)
+    {
+        if (level < 1)
+        {
+            throw new IllegalArgumentException("Invalid parallelism : " + level);
+        }
+
+        this.Parallelism = level;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : SetMemoryMapped
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] boolean bMapped -> true to use mapped I/O
+    //  Description     : Selects memory-mapped I/O for large entries. Entries
+    //                    that cannot be mapped still go through channels.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void SetMemoryMapped(boolean bMapped)
+    {
+        this.MemoryMapped = bMapped;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : SetOutputDirectory
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] String Dir -> Directory to restore into
+    //  Description     : Restores entries below Dir instead of the current
+    //                    working directory. Created on demand.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void SetOutputDirectory(String Dir)
+    {
+        this.OutputDir = Paths.get(Dir);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : SetFilter
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] String Pattern -> "glob:" or "regex:" pattern
+    //                                           (glob when unprefixed), or
+    //                                           null for every entry
+    //  Description     : Restricts UnpakingActivity and VerifyActivity to
+    //                    the entries whose name matches, as a path: in a
+    //                    glob "*" stays within one directory and "**"
+    //                    crosses them. The other entries are skipped by
+    //                    their stored size and never read or decrypted.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void SetFilter(String Pattern)
+    {
+        if (Pattern == null)
+        {
+            this.Filter = null;
+        }
+        else if (Pattern.startsWith("glob:") || Pattern.startsWith("regex:"))
+        {
+            this.Filter = FileSystems.getDefault().getPathMatcher(Pattern);
+        }
+        else
+        {
+            this.Filter = FileSystems.getDefault().getPathMatcher("glob:" + Pattern);
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : SetBufferPool
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] BufferPool Pool -> Shared chunk buffers, or
+    //                                            null (the default)
+    //  Description     : Leases the direct chunk buffers of the channel
+    //                    path from Pool, one per entry or segment in
+    //                    progress, waiting when it is exhausted. Without a
+    //                    pool every worker thread allocates its own heap
+    //                    buffer. Chunked
+    //                    (deduplicated) entries keep their own arrays.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void SetBufferPool(BufferPool Pool)
+    {
+        this.Pooled = Pool;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : SetPipeline
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] int iWorkers -> Cipher threads, 0 = off (the
+    //                                         default)
+    //  Description     : With one worker thread, overlaps reading,
+    //                    decrypting and writing the chunks of every raw
+    //                    entry larger than one chunk (see ChunkPipeline).
+    //                    Parallel extraction ignores this setting.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void SetPipeline(int iWorkers)
+    {
+        if (iWorkers < 0)
+        {
+            throw new IllegalArgumentException("Invalid pipeline workers : " + iWorkers);
+        }
+
+        this.PipelineWorkers = iWorkers;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : SetMetrics
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] PackMetrics Metrics -> Counters, or null
+    //  Description     : Counts bytes and time per stage and reports every
+    //                    restored entry to the metrics' listeners; the
+    //                    number of entries is known after the header scan.
+    //                    null (the default) turns all of it off.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void SetMetrics(PackMetrics Metrics)
+    {
+        this.Metrics = Metrics;
+    }
+
     /////////////////////////////////////////////////////////////////////////////
     //
     //  Function Name   : UnpakingActivity
     //  Function Date   : 16/09/2025
     //  Function Author : Rutik Shivaji Thitame
     //  Parameters      : None
-    //  Description     : Reads the packed file, extracts each file’s 100-byte 
-    //                    header (name and size), and restores the original 
-    //                    file contents by decrypting 8-byte blocks using 
-    //                    BlowfishEncryption.
+    //  Description     : Works in two phases. First the entry headers are
+    //                    scanned (name, size and data offset of every entry)
+    //                    without touching the contents. Then every entry is
+    //                    restored by decrypting whole chunks of 8-byte blocks
+    //                    read at its offset, one pool task per entry when
+    //                    parallelism is above 1. Unpacking stops at the
+    //                    first entry whose checksum does not match. With a
+    //                    filter only the matching entries are restored. A
+    //                    name packed more than once is restored from its
+    //                    last entry only, as ExtractEntry does.
     //  Returns         : int
     //                    >0  -> Number of files successfully unpacked
     //                    -1  -> Packed file not found
+    //                    -4  -> Filter set and no entry matches
+    //                    -5  -> Checksum mismatch (corrupt pack or wrong keys)
     //                    -99 -> Unknown exception
     //
     /////////////////////////////////////////////////////////////////////////////
@@ -62,13 +261,8 @@ public class MarvellousUnpacker
     {
         try
         {
-            String Header;
-            File fobjnew;
-        
-            int FileSize, iRet, iCountFile = 0;
-        
-            // Blowfish encryption object (for decryption)
-            BlowfishEncryption bEncryption = new BlowfishEncryption(key1, key2);
+            // Every engine a header may name (for decryption)
+            CipherSet Ciphers = new CipherSet(key1, key2);
         
             File fobj = new File(PackName);
         
@@ -77,59 +271,1003 @@ public class MarvellousUnpacker
             {
                 return -1;
             }
-        
-            FileInputStream fiobj = new FileInputStream(fobj);
-        
-            // Buffer to read header (100 bytes fixed)
-            byte HeaderBuffer[] = new byte[100];
-        
-            // Read each file’s header + encrypted contents
-            while ((iRet = fiobj.read(HeaderBuffer, 0, 100)) != -1)
-            {
-                // Extract filename and filesize from header
-                Header = new String(HeaderBuffer).trim();
-                String Tokens[] = Header.split(" ");
-                
-                fobjnew = new File(Tokens[0]);
-                fobjnew.createNewFile();
-            
-                FileSize = Integer.parseInt(Tokens[1]);
-            
-                byte Buffer[] = new byte[8];
-                int byteRead;
-            
-                FileOutputStream foobj = new FileOutputStream(fobjnew);
-            
-                // Read encrypted data in 8-byte blocks
-                while (FileSize > 0 && (byteRead = fiobj.read(Buffer)) != -1)
-                {
-                    byte[] decrypted = bEncryption.DecryptData(Buffer);
-                
-                    if (FileSize >= 8)
+
+            try (FileChannel fiobj = VolumeChannel.Open(fobj.toPath()))
+            {
+                // Phase 1 : header-only scan
+                List<PackEntry> Entries = LastOfEachName(Select(PackFormat.ScanEntries(fiobj)));
+
+                if (Entries.isEmpty() && Filter != null)
+                {
+                    return -4;
+                }
+
+                if (Metrics != null)
+                {
+                    Metrics.Expect(Entries.size());
+                }
+
+                // Phase 2 : extraction
+                UnpackAll(fiobj, Entries, Ciphers, false);
+
+                return Entries.size(); // success, number of files unpacked
+            }
+        }
+        catch (ChecksumException eobj)
+        {
+            eobj.printStackTrace();
+            return -5;  // corrupt pack or wrong keys
+        }
+        catch (Exception eobj)
+        {
+            eobj.printStackTrace();
+            return -99; // unknown error
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : VerifyActivity
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : None
+    //  Description     : Reads, decrypts (and inflates or reassembles)
+    //                    every entry exactly as UnpakingActivity does, in
+    //                    parallel when parallelism is above 1, but only
+    //                    checksums the result; no file is created. Every
+    //                    entry is checked even after a failure, and the
+    //                    names of the failed ones are kept for
+    //                    GetCorruptEntries. Entries packed without a
+    //                    CRC32C (legacy text headers, older packs) only
+    //                    prove that they can be decoded, which wrong keys
+    //                    usually pass too; they are not counted, and a
+    //                    selection with none carrying a CRC32C cannot be
+    //                    verified. With a filter only the matching entries
+    //                    are read.
+    //  Returns         : int
+    //                    >=0 -> Number of entries checked against their CRC32C
+    //                    -1  -> Packed file not found
+    //                    -4  -> Filter set and no entry matches
+    //                    -5  -> At least one entry is corrupt (or wrong keys)
+    //                    -6  -> No selected entry carries a CRC32C
+    //                    -99 -> Unknown exception
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public int VerifyActivity()
+    {
+        Corrupt.clear();
+
+        try
+        {
+            CipherSet Ciphers = new CipherSet(key1, key2);
+            File fobj = new File(PackName);
+
+            if (!fobj.exists())
+            {
+                return -1;
+            }
+
+            try (FileChannel fiobj = VolumeChannel.Open(fobj.toPath()))
+            {
+                List<PackEntry> Entries = Select(PackFormat.ScanEntries(fiobj));
+
+                if (Entries.isEmpty() && Filter != null)
+                {
+                    return -4;
+                }
+
+                if (Metrics != null)
+                {
+                    Metrics.Expect(Entries.size());
+                }
+
+                UnpackAll(fiobj, Entries, Ciphers, true);
+
+                if (!Corrupt.isEmpty())
+                {
+                    return -5;
+                }
+
+                int iChecked = 0;
+
+                for (PackEntry Entry : Entries)
+                {
+                    if (Entry.Hash >= 0)
                     {
-                        foobj.write(decrypted, 0, 8);
-                        FileSize -= 8;
+                        iChecked++;
                     }
-                    else
+                }
+
+                return (iChecked == 0 && !Entries.isEmpty()) ? -6 : iChecked;
+            }
+        }
+        catch (Exception eobj)
+        {
+            eobj.printStackTrace();
+            return -99;
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : GetCorruptEntries
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : None
+    //  Description     : Entries that failed the last VerifyActivity.
+    //  Returns         : List<String> - Entry names, empty if none failed
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public List<String> GetCorruptEntries()
+    {
+        synchronized (Corrupt)
+        {
+            return new ArrayList<>(Corrupt);
+        }
+    }
+
+    // Entries passing the filter, in pack order. Only names are looked
+    // at; chunk references into skipped entries are still positional
+    private List<PackEntry> Select(List<PackEntry> Entries) throws IOException
+    {
+        if (Filter == null)
+        {
+            return Entries;
+        }
+
+        List<PackEntry> Selected = new ArrayList<>();
+
+        for (PackEntry Entry : Entries)
+        {
+            if (Filter.matches(PackFormat.OutputPath(Entry.Name)))
+            {
+                Selected.add(Entry);
+            }
+        }
+
+        return Selected;
+    }
+
+    // Last entry for each output path, in pack order. Earlier entries of a
+    // name would only be overwritten, and in parallel they would truncate
+    // and write the same file at once. Chunk references stay positional
+    private static List<PackEntry> LastOfEachName(List<PackEntry> Entries) throws IOException
+    {
+        Map<Path, PackEntry> Last = new LinkedHashMap<>();
+
+        for (PackEntry Entry : Entries)
+        {
+            Path Target = PackFormat.OutputPath(Entry.Name);
+
+            Last.remove(Target);
+            Last.put(Target, Entry);
+        }
+
+        return (Last.size() == Entries.size()) ? Entries : new ArrayList<>(Last.values());
+    }
+
+    // Phase 2 of unpacking or verifying, on a pool when worthwhile
+    private void UnpackAll(FileChannel fiobj, List<PackEntry> Entries, CipherSet Ciphers,
+                           boolean bVerify) throws Exception
+    {
+        if (Parallelism > 1 && Entries.size() > 1)
+        {
+            UnpackParallel(fiobj, Entries, Ciphers, bVerify);
+        }
+        else
+        {
+            // Chunk buffer reused for every entry, unless leased per entry
+            ByteBuffer Buffer = (Pooled == null) ? ByteBuffer.allocate(ChunkSize) : null;
+
+            try (ChunkPipeline Pipe = (PipelineWorkers > 0) ? new ChunkPipeline(PipelineWorkers, ChunkSize) : null)
+            {
+                for (PackEntry Entry : Entries)
+                {
+                    UnpackEntry(fiobj, Entry, Ciphers, Buffer, Pipe, bVerify);
+                }
+            }
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : ExtractEntry
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] String Name -> Name of the entry to restore
+    //  Description     : Restores a single entry. With a central directory
+    //                    the entry is looked up there and read with one
+    //                    seek; legacy packs fall back to a header walk. No
+    //                    other entry is decrypted either way.
+    //  Returns         : int
+    //                    1   -> Entry restored
+    //                    -1  -> Packed file not found
+    //                    -4  -> No such entry in the pack
+    //                    -5  -> Checksum mismatch (corrupt pack or wrong keys)
+    //                    -99 -> Unknown exception
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public int ExtractEntry(String Name)
+    {
+        try
+        {
+            File fobj = new File(PackName);
+
+            if (!fobj.exists())
+            {
+                return -1;
+            }
+
+            try (FileChannel fiobj = VolumeChannel.Open(fobj.toPath()))
+            {
+                PackEntry Entry = null;
+                PackIndex Index = PackIndex.Read(fiobj);
+
+                if (Index != null)
+                {
+                    Entry = Index.Find(Name);
+                }
+                else
+                {
+                    for (PackEntry Scanned : PackFormat.ScanEntries(fiobj))
                     {
-                        // Write only remaining bytes for last block
-                        foobj.write(decrypted, 0, FileSize);
-                        FileSize = 0;
+                        if (Scanned.Name.equals(Name))
+                        {
+                            Entry = Scanned;
+                        }
                     }
                 }
-            
-                foobj.close();
-                iCountFile++;
+
+                if (Entry == null)
+                {
+                    return -4;
+                }
+
+                // Re-read the header itself; it is authoritative
+                PackEntry Header = PackFormat.ReadHeader(fiobj, Entry.HeaderOffset);
+
+                if (!Header.Name.equals(Name))
+                {
+                    throw new IOException("Central directory does not match header : " + Name);
+                }
+
+                // Text headers have no checksum; the directory may
+                if (Header.Hash < 0)
+                {
+                    Header.Hash = Entry.Hash;
+                }
+
+                Entry = Header;
+
+                if (Metrics != null)
+                {
+                    Metrics.Expect(1);
+                }
+
+                UnpackEntry(fiobj, Entry, new CipherSet(key1, key2),
+                            (Pooled == null) ? ByteBuffer.allocate(ChunkSize) : null, null, false);
+
+                return 1;
             }
-        
-            fiobj.close();
-            return iCountFile; // success, number of files unpacked
+        }
+        catch (ChecksumException eobj)
+        {
+            eobj.printStackTrace();
+            return -5;
         }
         catch (Exception eobj)
         {
             eobj.printStackTrace();
-            return -99; // unknown error
+            return -99;
         }
     }
 
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : UnpackParallel
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] FileChannel fiobj         -> Shared packed file
+    //                    [IN] List<PackEntry> Entries   -> Scanned entries
+    //                    [IN] CipherSet Ciphers         -> Shared ciphers
+    //                    [IN] boolean bVerify           -> Only checksum
+    //  Description     : Extracts on a pool of Parallelism threads. Every
+    //                    entry is one task, except that plain entries
+    //                    larger than PackFormat.SEGMENT_SIZE are split into
+    //                    segments written into a pre-created output file. Tasks only
+    //                    use positional reads, so they share one channel.
+    //                    The segments' checksums are combined by the last
+    //                    one to complete.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    private void UnpackParallel(FileChannel fiobj, List<PackEntry> Entries,
+                                CipherSet Ciphers, boolean bVerify) throws Exception
+    {
+        ForkJoinPool pool = new ForkJoinPool(Parallelism);
+
+        // One chunk buffer per worker thread
+        ThreadLocal<ByteBuffer> Buffers = ThreadLocal.withInitial(() -> ByteBuffer.allocate(ChunkSize));
+
+        try
+        {
+            List<ForkJoinTask<Void>> Tasks = new ArrayList<>(Entries.size());
+
+            for (PackEntry Entry : Entries)
+            {
+                if (Entry.Size <= PackFormat.SEGMENT_SIZE || (Entry.Flags & PackFormat.FLAG_STORED) != 0)
+                {
+                    Tasks.add(pool.submit(() ->
+                    {
+                        UnpackEntry(fiobj, Entry, Ciphers, (Pooled == null) ? Buffers.get() : null, null, bVerify);
+                        return null;
+                    }));
+                    continue;
+                }
+
+                // Create (or truncate) once, then fill segment by segment
+                long Since = PackMetrics.Now(Metrics);
+                long Segments = (Entry.Size + PackFormat.SEGMENT_SIZE - 1) / PackFormat.SEGMENT_SIZE;
+                long Partial[] = new long[(int) Segments];
+                AtomicInteger Left = new AtomicInteger((int) Segments);
+
+                if (Metrics != null)
+                {
+                    Metrics.EntryStarted(Entry);
+                }
+
+                if (!bVerify)
+                {
+                    OpenOutput(Entry, true).close();
+                }
+
+                PackCipher cipher = Ciphers.For(Entry);
+
+                for (long Start = 0; Start < Entry.Size; Start += PackFormat.SEGMENT_SIZE)
+                {
+                    final int iSegment = (int) (Start / PackFormat.SEGMENT_SIZE);
+                    final long SegStart = Start;
+                    final long SegLength = Math.min(PackFormat.SEGMENT_SIZE, Entry.Size - Start);
+
+                    Tasks.add(pool.submit(() ->
+                    {
+                        try
+                        {
+                            CRC32C Crc = new CRC32C();
+
+                            try (FileChannel foobj = bVerify ? null : OpenOutput(Entry, false))
+                            {
+                                UnpackRange(fiobj, foobj, Entry, SegStart, SegLength, cipher,
+                                            (Pooled == null) ? Buffers.get() : null, null, Crc);
+                            }
+
+                            Partial[iSegment] = Crc.getValue();
+
+                            // The last segment to complete checks and finishes the entry
+                            if (Left.decrementAndGet() == 0)
+                            {
+                                PackFormat.CheckCrc(Entry, PackFormat.CombineCrc(Partial, Entry.Size,
+                                                                                 PackFormat.SEGMENT_SIZE));
+
+                                if (Metrics != null)
+                                {
+                                    Metrics.EntryFinished(Entry, Since);
+                                }
+                            }
+                        }
+                        catch (IOException eobj)
+                        {
+                            Failed(Entry, eobj, bVerify);
+                        }
+                        return null;
+                    }));
+                }
+            }
+
+            // Wait for all tasks; rethrows the first failure
+            for (ForkJoinTask<Void> Task : Tasks)
+            {
+                try
+                {
+                    Task.get();
+                }
+                catch (ExecutionException eobj)
+                {
+                    // The pool wraps checked exceptions in RuntimeException
+                    Throwable Cause = eobj.getCause();
+
+                    while (Cause instanceof RuntimeException && Cause.getCause() != null)
+                    {
+                        Cause = Cause.getCause();
+                    }
+
+                    if (Cause instanceof IOException)
+                    {
+                        throw (IOException) Cause;
+                    }
+
+                    throw eobj;
+                }
+            }
+        }
+        finally
+        {
+            pool.shutdownNow();
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : UnpackEntry
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] FileChannel fiobj -> Packed file
+    //                    [IN] PackEntry Entry   -> Entry to restore
+    //                    [IN] CipherSet Ciphers -> Engines by algorithm id
+    //                    [IN] ByteBuffer Buffer -> Reusable chunk buffer, or
+    //                                              null to lease one
+    //                    [IN] ChunkPipeline Pipe -> Overlaps raw entries, or
+    //                                              null
+    //                    [IN] boolean bVerify   -> Only checksum, and record
+    //                                              a failure instead of
+    //                                              throwing it
+    //  Description     : Creates (or truncates) the output file named in the
+    //                    header and restores its contents with the engine
+    //                    recorded in the header, inflating them for
+    //                    compressed entries and reassembling chunked ones.
+    //                    The restored bytes are checked against the
+    //                    entry's CRC32C.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    private void UnpackEntry(FileChannel fiobj, PackEntry Entry, CipherSet Ciphers,
+                             ByteBuffer Buffer, ChunkPipeline Pipe, boolean bVerify) throws IOException
+    {
+        PackCipher cipher = Ciphers.For(Entry);
+        long Since = PackMetrics.Now(Metrics);
+        CRC32C Crc = new CRC32C();
+
+        if (Metrics != null)
+        {
+            Metrics.EntryStarted(Entry);
+        }
+
+        try (FileChannel foobj = bVerify ? null : OpenOutput(Entry, true))
+        {
+            if ((Entry.Flags & PackFormat.FLAG_DEFLATE) != 0)
+            {
+                ByteBuffer Lease = (Buffer != null) ? Buffer : Pooled.Acquire(ChunkSize);
+
+                try
+                {
+                    InflateContents(fiobj, foobj, Entry, cipher, Lease, Crc, Metrics);
+                }
+                finally
+                {
+                    if (Lease != Buffer)
+                    {
+                        Pooled.Release(Lease);
+                    }
+                }
+            }
+            else if ((Entry.Flags & PackFormat.FLAG_CHUNKED) != 0)
+            {
+                UnpackChunked(fiobj, foobj, Entry, cipher, Crc, Metrics);
+            }
+            else
+            {
+                UnpackRange(fiobj, foobj, Entry, 0, Entry.Size, cipher, Buffer, Pipe, Crc);
+            }
+
+            PackFormat.CheckCrc(Entry, Crc.getValue());
+        }
+        catch (IOException eobj)
+        {
+            Failed(Entry, eobj, bVerify);
+            return;
+        }
+
+        if (Metrics != null)
+        {
+            Metrics.EntryFinished(Entry, Since);
+        }
+    }
+
+    // Verification notes a failed entry and goes on; unpacking stops
+    private void Failed(PackEntry Entry, IOException eobj, boolean bVerify) throws IOException
+    {
+        if (!bVerify)
+        {
+            throw eobj;
+        }
+
+        Corrupt.add(Entry.Name);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : OpenOutput
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] PackEntry Entry     -> Entry to restore
+    //                    [IN] boolean bTruncate   -> Discard existing contents
+    //  Description     : Opens the entry's output file below the output
+    //                    directory for read/write (the mapped path needs
+    //                    both), creating it and any parent directories if
+    //                    needed.
+    //  Returns         : FileChannel
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    private FileChannel OpenOutput(PackEntry Entry, boolean bTruncate) throws IOException
+    {
+        Path Target = OutputDir.resolve(PackFormat.OutputPath(Entry.Name));
+
+        if (Target.getParent() != null)
+        {
+            Files.createDirectories(Target.getParent());
+        }
+
+        if (bTruncate)
+        {
+            return FileChannel.open(Target,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        return FileChannel.open(Target,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : UnpackRange
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] FileChannel fiobj -> Packed file
+    //                    [IN] FileChannel foobj -> Output file
+    //                    [IN] PackEntry Entry   -> Entry to restore
+    //                    [IN] long Start        -> First file byte (multiple of 8)
+    //                    [IN] long Length       -> Number of file bytes
+    //                    [IN] PackCipher cipher -> Cipher
+    //                    [IN] ByteBuffer Buffer -> Reusable chunk buffer, or
+    //                                              null to lease one
+    //                    [IN] ChunkPipeline Pipe -> Overlaps the channel
+    //                                              path, or null
+    //                    [IN OUT] CRC32C Crc    -> Updated with the range
+    //  Description     : Restores one range of an entry. In memory-mapped
+    //                    mode, ranges of at least one chunk are decrypted
+    //                    between mappings; smaller ones, any range whose
+    //                    mapping fails, and verification (foobj null) use
+    //                    the channel path, through Pipe when the range
+    //                    spans more than one chunk.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    private void UnpackRange(FileChannel fiobj, FileChannel foobj, PackEntry Entry, long Start, long Length,
+                             PackCipher cipher, ByteBuffer Buffer, ChunkPipeline Pipe,
+                             CRC32C Crc) throws IOException
+    {
+        if (Length == 0)
+        {
+            return;
+        }
+
+        if (MemoryMapped && foobj != null && Length >= ChunkSize)
+        {
+            try
+            {
+                UnpackContentsMapped(fiobj, foobj, Entry, Start, Length, cipher, Crc, Metrics);
+                return;
+            }
+            catch (IOException eobj)
+            {
+                // Mapping not possible here, fall back to the channel path
+                Crc.reset();
+            }
+        }
+
+        if (Pipe != null && Length > ChunkSize)
+        {
+            Pipe.Unpack(fiobj, foobj, Entry, Start, Length, cipher, Crc, Metrics);
+            return;
+        }
+
+        if (Buffer != null)
+        {
+            UnpackContents(fiobj, foobj, Entry, Start, Length, cipher, Buffer, Crc, Metrics);
+            return;
+        }
+
+        ByteBuffer Lease = Pooled.Acquire(ChunkSize);
+
+        try
+        {
+            UnpackContents(fiobj, foobj, Entry, Start, Length, cipher, Lease, Crc, Metrics);
+        }
+        finally
+        {
+            Pooled.Release(Lease);
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : InflateContents
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] FileChannel fiobj -> Packed file
+    //                    [IN] FileChannel foobj -> Output file, null to only
+    //                                              checksum
+    //                    [IN] PackEntry Entry   -> Compressed entry
+    //                    [IN] PackCipher cipher -> Cipher
+    //                    [IN] ByteBuffer Buffer -> Reusable chunk buffer
+    //                    [IN OUT] CRC32C Crc    -> Updated with the contents
+    //                    [IN] PackMetrics Metrics -> Counters, or null
+    //  Description     : Reads and decrypts the stored chunks of a deflated
+    //                    entry and inflates them into the output file.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static void InflateContents(FileChannel fiobj, FileChannel foobj, PackEntry Entry, PackCipher cipher,
+                                ByteBuffer Buffer, CRC32C Crc, PackMetrics Metrics) throws IOException
+    {
+        Inflater Inf = new Inflater();
+        byte Output[] = new byte[(int) Math.min(Buffer.capacity(), Math.max(Entry.Size, 1))];
+
+        long Read = 0;
+        long Written = 0;
+
+        try
+        {
+            while (Written < Entry.Size)
+            {
+                if (Inf.needsInput())
+                {
+                    int iWant = (int) Math.min(Buffer.capacity(), Entry.StoredSize() - Read);
+
+                    if (iWant <= 0)
+                    {
+                        throw new EOFException("Compressed data ends early : " + Entry.Name);
+                    }
+
+                    ReadDecrypted(fiobj, Entry, Buffer, iWant, Read, cipher, Metrics);
+                    Inf.setInput(Buffer);
+
+                    Read += iWant;
+                }
+
+                int iRet = Inf.inflate(Output, 0, (int) Math.min(Output.length, Entry.Size - Written));
+
+                if (iRet == 0 && (Inf.finished() || Inf.needsDictionary()))
+                {
+                    throw new EOFException("Compressed data ends early : " + Entry.Name);
+                }
+
+                Crc.update(Output, 0, iRet);
+
+                if (foobj != null)
+                {
+                    long Tick = PackMetrics.Now(Metrics);
+                    ChannelIO.WriteFully(foobj, ByteBuffer.wrap(Output, 0, iRet), Written);
+
+                    if (Metrics != null)
+                    {
+                        Metrics.Written(iRet, Tick);
+                    }
+                }
+
+                Written += iRet;
+            }
+        }
+        catch (DataFormatException eobj)
+        {
+            throw new IOException("Corrupt compressed entry : " + Entry.Name, eobj);
+        }
+        finally
+        {
+            Inf.end();
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : UnpackChunked
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] FileChannel fiobj -> Packed file
+    //                    [IN] FileChannel foobj -> Output file, null to only
+    //                                              checksum
+    //                    [IN] PackEntry Entry   -> FLAG_CHUNKED entry
+    //                    [IN] PackCipher cipher -> Cipher
+    //                    [IN OUT] CRC32C Crc    -> Updated with the contents
+    //                    [IN] PackMetrics Metrics -> Counters, or null
+    //  Description     : Walks the entry's chunk records (see DedupTable).
+    //                    New chunks are decrypted in place; references are
+    //                    read from the earlier position they point at and
+    //                    decrypted with the nonce and counter they name.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static void UnpackChunked(FileChannel fiobj, FileChannel foobj, PackEntry Entry,
+                              PackCipher cipher, CRC32C Crc, PackMetrics Metrics) throws IOException
+    {
+        byte Descriptor[] = new byte[DedupTable.RECORD_SIZE];
+        byte Chunk[] = new byte[DedupTable.MAX_CHUNK];
+        ByteBuffer Fields = ByteBuffer.wrap(Descriptor);
+
+        long Pos = 0;         // Within the stored records
+        long Out = 0;         // Within the restored file
+
+        while (Pos < Entry.StoredSize())
+        {
+            if (Entry.StoredSize() - Pos < Descriptor.length)
+            {
+                throw new EOFException("Truncated chunk record : " + Entry.Name);
+            }
+
+            ReadDecrypted(fiobj, Entry, Descriptor, Descriptor.length, Pos, cipher, Metrics);
+            Pos += Descriptor.length;
+
+            int iKind = Fields.getInt(0);
+            int iLength = Fields.getInt(4);
+            int iStored = (int) PackFormat.StoredSize(iLength);
+
+            if (iLength < 0 || iLength > Chunk.length || Out + iLength > Entry.Size)
+            {
+                throw new IOException("Corrupt chunk record : " + Entry.Name);
+            }
+
+            if (iKind == DedupTable.KIND_NEW)
+            {
+                if (Pos + iStored > Entry.StoredSize())
+                {
+                    throw new EOFException("Truncated chunk record : " + Entry.Name);
+                }
+
+                ReadDecrypted(fiobj, Entry, Chunk, iStored, Pos, cipher, Metrics);
+                Pos += iStored;
+            }
+            else if (iKind == DedupTable.KIND_REF)
+            {
+                long Offset = Fields.getLong(8);
+                long Tick = PackMetrics.Now(Metrics);
+
+                if (!DedupTable.ValidReference(Offset, iStored, Entry.DataOffset + Pos - Descriptor.length)
+                    || ChannelIO.ReadFully(fiobj, ByteBuffer.wrap(Chunk, 0, iStored), Offset) < iStored)
+                {
+                    throw new IOException("Corrupt chunk reference : " + Entry.Name);
+                }
+
+                if (Metrics != null)
+                {
+                    Tick = Metrics.Read(iStored, Tick);
+                }
+
+                cipher.CryptCounter(Chunk, 0, iStored, Fields.getLong(16), Fields.getLong(24));
+
+                if (Metrics != null)
+                {
+                    Metrics.Encrypted(iStored, Tick);
+                }
+            }
+            else
+            {
+                throw new IOException("Corrupt chunk record : " + Entry.Name);
+            }
+
+            Crc.update(Chunk, 0, iLength);
+
+            if (foobj != null)
+            {
+                long Tick = PackMetrics.Now(Metrics);
+                ChannelIO.WriteFully(foobj, ByteBuffer.wrap(Chunk, 0, iLength), Out);
+
+                if (Metrics != null)
+                {
+                    Metrics.Written(iLength, Tick);
+                }
+            }
+
+            Out += iLength;
+        }
+
+        if (Out != Entry.Size)
+        {
+            throw new IOException("Chunk records do not add up to the file size : " + Entry.Name);
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : UnpackContentsMapped
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] FileChannel fiobj -> Packed file
+    //                    [IN] FileChannel foobj -> Output file (read/write)
+    //                    [IN] PackEntry Entry   -> Entry to restore
+    //                    [IN] long Start        -> First file byte (multiple of 8)
+    //                    [IN] long Length       -> Number of file bytes
+    //                    [IN] PackCipher cipher -> Cipher
+    //                    [IN OUT] CRC32C Crc    -> Updated with the range
+    //                    [IN] PackMetrics Metrics -> Counters, or null
+    //  Description     : Maps the ciphertext range and the matching region
+    //                    of the output file in windows of at most
+    //                    PackFormat.MAP_WINDOW bytes, decrypts from one
+    //                    mapping into the other and checksums the result.
+    //                    A final partial block goes through a small array.
+    //                    Page faults are counted as cipher time.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static void UnpackContentsMapped(FileChannel fiobj, FileChannel foobj, PackEntry Entry,
+                                     long Start, long Length, PackCipher cipher,
+                                     CRC32C Crc, PackMetrics Metrics) throws IOException
+    {
+        long Full = Length & ~(long) (PackFormat.BLOCK_SIZE - 1);
+        long Done = 0;
+
+        while (Done < Full)
+        {
+            long Window = Math.min(PackFormat.MAP_WINDOW, Full - Done);
+            long Tick = PackMetrics.Now(Metrics);
+
+            MappedByteBuffer Src = fiobj.map(FileChannel.MapMode.READ_ONLY,
+                                             Entry.DataOffset + Start + Done, Window);
+            MappedByteBuffer Dst = foobj.map(FileChannel.MapMode.READ_WRITE, Start + Done, Window);
+
+            PackFormat.DecryptMapped(cipher, Entry, Src, Dst, Start + Done);
+            Crc.update(Dst.rewind());
+
+            if (Metrics != null)
+            {
+                Metrics.Transferred(Window, Metrics.Encrypted(Window, Tick));
+            }
+
+            Done += Window;
+        }
+
+        int iTail = (int) (Length - Full);
+
+        if (iTail > 0)
+        {
+            byte Block[] = new byte[PackFormat.BLOCK_SIZE];
+
+            ReadDecrypted(fiobj, Entry, Block, Block.length, Start + Full, cipher, Metrics);
+            Crc.update(Block, 0, iTail);
+
+            long Tick = PackMetrics.Now(Metrics);
+            ChannelIO.WriteFully(foobj, ByteBuffer.wrap(Block, 0, iTail), Start + Full);
+
+            if (Metrics != null)
+            {
+                Metrics.Written(iTail, Tick);
+            }
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : UnpackContents
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] FileChannel fiobj -> Packed file
+    //                    [IN] FileChannel foobj -> Output file, null to only
+    //                                              checksum
+    //                    [IN] PackEntry Entry   -> Entry to restore
+    //                    [IN] long Start        -> First file byte (multiple of 8)
+    //                    [IN] long Length       -> Number of file bytes
+    //                    [IN] PackCipher cipher -> Cipher
+    //                    [IN] ByteBuffer Buffer -> Reusable chunk buffer
+    //                    [IN OUT] CRC32C Crc    -> Updated with the range
+    //                    [IN] PackMetrics Metrics -> Counters, or null
+    //  Description     : Reads the range's padded ciphertext in whole chunks
+    //                    with positional reads, decrypts each chunk in place,
+    //                    checksums the original bytes and writes them at
+    //                    the same offset of the output file.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static void UnpackContents(FileChannel fiobj, FileChannel foobj, PackEntry Entry, long Start, long Length,
+                               PackCipher cipher, ByteBuffer Buffer, CRC32C Crc,
+                               PackMetrics Metrics) throws IOException
+    {
+        long Stored = PackFormat.StoredSize(Length);
+        long Done = 0;
+
+        while (Done < Stored)
+        {
+            int iWant = (int) Math.min(Buffer.capacity(), Stored - Done);
+
+            ReadDecrypted(fiobj, Entry, Buffer, iWant, Start + Done, cipher, Metrics);
+
+            // Write only the original bytes (drop padding of last block)
+            int iWrite = (int) Math.min(iWant, Length - Done);
+
+            Crc.update(Buffer.limit(iWrite));
+
+            if (foobj != null)
+            {
+                long Tick = PackMetrics.Now(Metrics);
+
+                Buffer.position(0);
+                ChannelIO.WriteFully(foobj, Buffer, Start + Done);
+
+                if (Metrics != null)
+                {
+                    Metrics.Written(iWrite, Tick);
+                }
+            }
+
+            Done += iWant;
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : ReadDecrypted
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] FileChannel fiobj   -> Packed file
+    //                    [IN] PackEntry Entry     -> Entry being restored
+    //                    [OUT] byte Data[]        -> Receives the plaintext
+    //                    [IN] int iLength         -> Length (multiple of 8)
+    //                    [IN] long Start          -> Offset within the
+    //                                                stored bytes
+    //                    [IN] PackCipher cipher   -> Cipher
+    //                    [IN] PackMetrics Metrics -> Counters, or null
+    //  Description     : Reads one chunk of stored bytes with a positional
+    //                    read and decrypts it in place.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static void ReadDecrypted(FileChannel fiobj, PackEntry Entry, byte Data[], int iLength, long Start,
+                              PackCipher cipher, PackMetrics Metrics) throws IOException
+    {
+        ReadDecrypted(fiobj, Entry, ByteBuffer.wrap(Data), iLength, Start, cipher, Metrics);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : ReadDecrypted
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] FileChannel fiobj   -> Packed file
+    //                    [IN] PackEntry Entry     -> Entry being restored
+    //                    [OUT] ByteBuffer Buffer  -> Heap or direct buffer;
+    //                                                left holding the
+    //                                                plaintext from 0 to
+    //                                                iLength
+    //                    [IN] int iLength         -> Length (multiple of 8)
+    //                    [IN] long Start          -> Offset within the
+    //                                                stored bytes
+    //                    [IN] PackCipher cipher   -> Cipher
+    //                    [IN] PackMetrics Metrics -> Counters, or null
+    //  Description     : Buffer variant, for pooled direct buffers.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static void ReadDecrypted(FileChannel fiobj, PackEntry Entry, ByteBuffer Buffer, int iLength, long Start,
+                              PackCipher cipher, PackMetrics Metrics) throws IOException
+    {
+        long Tick = PackMetrics.Now(Metrics);
+
+        Buffer.clear().limit(iLength);
+
+        if (ChannelIO.ReadFully(fiobj, Buffer, Entry.DataOffset + Start) < iLength)
+        {
+            throw new EOFException("Truncated entry data : " + Entry.Name);
+        }
+
+        if (Metrics != null)
+        {
+            Tick = Metrics.Read(iLength, Tick);
+        }
+
+        PackFormat.DecryptMapped(cipher, Entry, Buffer.flip(), Buffer, Start);
+
+        if (Metrics != null)
+        {
+            Metrics.Encrypted(iLength, Tick);
+        }
+    }
 }
@@ -0,0 +1,102 @@
+package MarvellousPackerUnpacker;
+
+import java.nio.ByteBuffer;
+
+/////////////////////////////////////////////////////////////////////////
+//
+//  Interface :     PackCipher
+//  Description:    Cipher used to protect entry contents. The packer and
+//                  unpacker only talk to this interface; the algorithm of
+//                  every entry is recorded in its header flags, so a pack
+//                  is always read back with the engine that wrote it.
+//                  Counter mode is all every engine provides; engines
+//                  that also work in ECB implement BlockCipher.
+//                  Implementations must be safe to share between threads.
+//  Author :        Rutik Shivaji Thitame
+//  Date   :        16/09/2025
+//
+/////////////////////////////////////////////////////////////////////////
+
+public interface PackCipher
+{
+    int ALGORITHM_BLOWFISH = 0;      // BlowfishEncryption, ECB (BlockCipher) or CTR
+    int ALGORITHM_AES = 1;           // AESEncryption, CTR only
+    int ALGORITHM_COUNT = 2;
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : AlgorithmId
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : None
+    //  Description     : Identifier recorded in the header of every entry
+    //                    encrypted with this engine.
+    //  Returns         : int - One of the ALGORITHM_ constants
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    int AlgorithmId();
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : CryptCounter
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN OUT] byte[] data - Bytes to encrypt or decrypt
+    //                    [IN] int offset      - First byte to process
+    //                    [IN] int length      - Number of bytes (multiple of 8)
+    //                    [IN] long nonce      - Per-entry nonce
+    //                    [IN] long counter    - Offset within the entry in
+    //                                           8-byte units
+    //  Description     : Counter mode in place. Encryption and decryption
+    //                    are the same operation.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    void CryptCounter(byte[] data, int offset, int length, long nonce, long counter);
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : CryptCounter
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] ByteBuffer src  - Input between position and
+    //                                           limit (multiple of 8)
+    //                    [OUT] ByteBuffer dst - Receives output from its
+    //                                           position on (may be src)
+    //                    [IN] long nonce      - Per-entry nonce
+    //                    [IN] long counter    - Offset within the entry in
+    //                                           8-byte units
+    //  Description     : Buffer variant of counter mode. Positions and
+    //                    limits are left unchanged.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    void CryptCounter(ByteBuffer src, ByteBuffer dst, long nonce, long counter);
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : Create
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] int Algorithm -> One of the ALGORITHM_ constants
+    //                    [IN] int key1      -> First encryption key
+    //                    [IN] int key2      -> Second encryption key
+    //  Description     : Creates the engine for an algorithm id.
+    //  Returns         : PackCipher
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static PackCipher Create(int Algorithm, int key1, int key2)
+    {
+        switch (Algorithm)
+        {
+            case ALGORITHM_BLOWFISH:
+                return new BlowfishEncryption(key1, key2);
+
+            case ALGORITHM_AES:
+                return new AESEncryption(key1, key2);
+
+            default:
+                throw new IllegalArgumentException("Unknown cipher algorithm : " + Algorithm);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package MarvellousPackerUnpacker;
+
+/////////////////////////////////////////////////////////////////////////
+//
+//  Class :         PackEntry
+//  Description :   Location of one entry inside a packed file, as found
+//                  by a header scan: its name, original size, where its
+//                  header and encrypted contents start, and how the
+//                  contents were encrypted. Also handed out by
+//                  UnpackerInputStream.GetNextEntry.
+//  Author :        Rutik Shivaji Thitame
+//
+/////////////////////////////////////////////////////////////////////////
+
+public final class PackEntry
+{
+    final String Name;        // File name stored in the header
+    final long Size;          // Original file size
+    final long HeaderOffset;  // Offset of the entry header
+    final long DataOffset;    // Offset of the encrypted contents
+    final int Flags;          // Per-entry flags (0 for legacy entries)
+    final long Nonce;         // Counter mode nonce (FLAG_CTR entries)
+    final long Stored;        // Bytes following the header (multiple of 8)
+
+    long Modified = -1;       // Source mtime in ms (central directory only)
+    long Hash = -1;           // CRC32C of the contents, -1 if not recorded
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : PackEntry (Constructor)
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] String Name        -> Entry name
+    //                    [IN] long Size          -> Original file size
+    //                    [IN] long HeaderOffset  -> Header offset in the pack
+    //                    [IN] long DataOffset    -> Data offset in the pack
+    //                    [IN] int Flags          -> Per-entry flags
+    //                    [IN] long Nonce         -> Counter mode nonce
+    //  Description     : Records the entry location.
+    //  Returns         : None
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    PackEntry(String Name, long Size, long HeaderOffset, long DataOffset, int Flags, long Nonce)
+    {
+        this(Name, Size, HeaderOffset, DataOffset, Flags, Nonce, PackFormat.StoredSize(Size));
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : PackEntry (Constructor)
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] String Name        -> Entry name
+    //                    [IN] long Size          -> Original file size
+    //                    [IN] long HeaderOffset  -> Header offset in the pack
+    //                    [IN] long DataOffset    -> Data offset in the pack
+    //                    [IN] int Flags          -> Per-entry flags
+    //                    [IN] long Nonce         -> Counter mode nonce
+    //                    [IN] long Stored        -> Stored bytes, for entries
+    //                                               whose contents were
+    //                                               compressed
+    //  Description     : Records the entry location.
+    //  Returns         : None
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    PackEntry(String Name, long Size, long HeaderOffset, long DataOffset, int Flags, long Nonce, long Stored)
+    {
+        this.Name = Name;
+        this.Size = Size;
+        this.HeaderOffset = HeaderOffset;
+        this.DataOffset = DataOffset;
+        this.Flags = Flags;
+        this.Nonce = Nonce;
+        this.Stored = Stored;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : StoredSize
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : None
+    //  Description     : Number of encrypted bytes following the header.
+    //  Returns         : long
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    long StoredSize()
+    {
+        return Stored;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : GetName
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : None
+    //  Description     : Name of the entry as stored in the header.
+    //  Returns         : String
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public String GetName()
+    {
+        return Name;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : GetSize
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : None
+    //  Description     : Original file size in bytes.
+    //  Returns         : long
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public long GetSize()
+    {
+        return Size;
+    }
+}
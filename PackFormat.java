@@ -0,0 +1,918 @@
+package MarvellousPackerUnpacker;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/////////////////////////////////////////////////////////////////////////
+//
+//  Class :         PackFormat
+//  Description :   Constants and helpers describing the on-disk layout
+//                  of a packed file, shared by MarvellousPacker and
+//                  MarvellousUnpacker. Every entry is a header followed
+//                  by the encrypted contents rounded up to 8 bytes.
+//                  Binary headers (the default) are
+//
+//                      0xB5 | varint name length | UTF-8 name |
+//                      long size | int flags | long nonce | long stored
+//
+//                  so their length depends only on the name. Headers
+//                  starting with 0xB6 instead append "int crc", the
+//                  CRC32C of the original contents; MarvellousPacker
+//                  writes them after the contents, once it is known.
+//                  Legacy
+//                  headers are 100 bytes of space padded text holding
+//                  "name size"; entries with flags set append "flags
+//                  nonce" (nonce in hex), and compressed or deduplicated
+//                  entries also append their stored size. 0xB5 never
+//                  starts UTF-8 text, so all kinds can be told apart
+//                  by their first byte and may be mixed in one pack.
+//                  Bits 8 and up of the flags hold the PackCipher
+//                  algorithm id; 0 (Blowfish) keeps old headers valid.
+//  Author :        Rutik Shivaji Thitame
+//
+/////////////////////////////////////////////////////////////////////////
+
+final class PackFormat
+{
+    static final int HEADER_SIZE = 100;              // Legacy text header length
+    static final byte BINARY_MAGIC = (byte) 0xB5;    // First byte of a binary header
+    static final byte BINARY_MAGIC_CRC = (byte) 0xB6; // Same, followed by the CRC32C
+    static final int BINARY_FIXED = 28;              // size + flags + nonce + stored
+    static final int CRC_SIZE = 4;                   // Checksum after the fixed fields
+    static final int MAX_NAME_BYTES = 65535;         // Binary header name limit
+    static final int BLOCK_SIZE = 8;                 // Blowfish block length
+
+    static final int DEFAULT_CHUNK_SIZE = 1 << 20;   // 1 MiB per read/write
+    static final int MAX_CHUNK_SIZE = 64 << 20;      // 64 MiB upper bound
+    static final long MAP_WINDOW = 1L << 30;         // 1 GiB per mapping
+    static final long SEGMENT_SIZE = 16L << 20;      // Parallel split of large entries
+
+    static final int FLAG_CTR = 1;                   // Counter mode instead of ECB
+    static final int FLAG_DEFLATE = 2;               // Contents deflated before encryption
+    static final int FLAG_CHUNKED = 4;               // Deduplicated chunk records (DedupTable)
+    static final int KNOWN_FLAGS = FLAG_CTR | FLAG_DEFLATE | FLAG_CHUNKED;
+    static final int FLAG_STORED = FLAG_DEFLATE | FLAG_CHUNKED; // Header carries the stored size
+    static final int ALGORITHM_SHIFT = 8;            // Cipher id above the flag bits
+
+    static final long KEY_CHECK_NONCE = 0x4B4559434845434BL; // "KEYCHECK", never an entry nonce
+
+    static final int SAMPLE_SIZE = 64 << 10;         // Bytes tried before compressing
+    static final int SAMPLE_PERCENT = 90;            // Keep raw above this ratio
+
+    private PackFormat()
+    {
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : StoredSize
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] long size -> Original file size
+    //  Description     : Size of the encrypted contents on disk, i.e. the
+    //                    original size rounded up to whole 8-byte blocks.
+    //  Returns         : long
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static long StoredSize(long size)
+    {
+        return (size + BLOCK_SIZE - 1) & ~(long) (BLOCK_SIZE - 1);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : HeaderLength
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] String Name       -> Entry name
+    //                    [IN] boolean bLegacy   -> true for a text header
+    //                    [IN] boolean bChecksum -> true if the header will
+    //                                              carry the CRC32C (binary
+    //                                              headers only)
+    //  Description     : Length of the header written for an entry, so its
+    //                    data offset is known before anything is written.
+    //                    Called when an entry is added, it also rejects
+    //                    names of more than MAX_NAME_BYTES UTF-8 bytes,
+    //                    which neither a binary header nor the central
+    //                    directory can hold.
+    //  Returns         : int
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static int HeaderLength(String Name, boolean bLegacy, boolean bChecksum) throws IOException
+    {
+        int iName = Name.getBytes(StandardCharsets.UTF_8).length;
+
+        if (iName > MAX_NAME_BYTES)
+        {
+            throw new IOException("File name too long for header : " + Name);
+        }
+
+        if (bLegacy)
+        {
+            return HEADER_SIZE;
+        }
+
+        return 1 + VarintLength(iName) + iName + BINARY_FIXED + (bChecksum ? CRC_SIZE : 0);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : BuildHeader
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] PackEntry Entry   -> Entry to describe
+    //                    [IN] boolean bLegacy   -> true for a text header
+    //  Description     : Builds the entry's header in either format.
+    //  Returns         : byte[] - Header bytes
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static byte[] BuildHeader(PackEntry Entry, boolean bLegacy) throws IOException
+    {
+        byte Header[] = bLegacy ? BuildTextHeader(Entry) : BuildBinaryHeader(Entry);
+
+        if (Header.length != Entry.DataOffset - Entry.HeaderOffset)
+        {
+            throw new IllegalStateException("Header length does not match data offset : " + Entry.Name);
+        }
+
+        return Header;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : BuildBinaryHeader
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] PackEntry Entry -> Entry to describe
+    //  Description     : Builds a binary header. Any name of up to
+    //                    MAX_NAME_BYTES UTF-8 bytes is allowed. Entries
+    //                    with a checksum get the BINARY_MAGIC_CRC form.
+    //  Returns         : byte[] - Header bytes
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static byte[] BuildBinaryHeader(PackEntry Entry) throws IOException
+    {
+        byte Name[] = Entry.Name.getBytes(StandardCharsets.UTF_8);
+
+        if (Name.length > MAX_NAME_BYTES)
+        {
+            throw new IOException("File name too long for header : " + Entry.Name);
+        }
+
+        boolean bChecksum = Entry.Hash >= 0;
+        ByteBuffer Header = ByteBuffer.allocate(1 + VarintLength(Name.length) + Name.length + BINARY_FIXED
+                                                + (bChecksum ? CRC_SIZE : 0));
+
+        Header.put(bChecksum ? BINARY_MAGIC_CRC : BINARY_MAGIC);
+
+        for (int Value = Name.length; ; Value >>>= 7)
+        {
+            if (Value < 0x80)
+            {
+                Header.put((byte) Value);
+                break;
+            }
+
+            Header.put((byte) (Value | 0x80));
+        }
+
+        Header.put(Name);
+        Header.putLong(Entry.Size);
+        Header.putInt(Entry.Flags);
+        Header.putLong(Entry.Nonce);
+        Header.putLong(Entry.StoredSize());
+
+        if (bChecksum)
+        {
+            Header.putInt((int) Entry.Hash);
+        }
+
+        return Header.array();
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : BuildTextHeader
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] PackEntry Entry -> Entry to describe
+    //  Description     : Builds the legacy 100-byte header padded with
+    //                    spaces. Entries without flags get the "name size"
+    //                    form; others append "flags nonce", and compressed
+    //                    or deduplicated ones also their stored size.
+    //                    Padding is done on bytes, so multi-byte UTF-8
+    //                    names still give exactly 100 bytes. Names with
+    //                    spaces cannot be represented.
+    //  Returns         : byte[] - Header bytes
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static byte[] BuildTextHeader(PackEntry Entry) throws IOException
+    {
+        if (Entry.Name.indexOf(' ') >= 0)
+        {
+            throw new IOException("File name with spaces needs a binary header : " + Entry.Name);
+        }
+
+        String Text = Entry.Name + " " + Entry.Size;
+
+        if (Entry.Flags != 0)
+        {
+            Text = Text + " " + Entry.Flags + " " + Long.toHexString(Entry.Nonce);
+        }
+
+        if ((Entry.Flags & FLAG_STORED) != 0)
+        {
+            Text = Text + " " + Entry.StoredSize();
+        }
+
+        byte[] text = Text.getBytes(StandardCharsets.UTF_8);
+
+        if (text.length > HEADER_SIZE)
+        {
+            throw new IOException("File name too long for header : " + Entry.Name);
+        }
+
+        byte[] header = new byte[HEADER_SIZE];
+        System.arraycopy(text, 0, header, 0, text.length);
+
+        for (int i = text.length; i < HEADER_SIZE; i++)
+        {
+            header[i] = ' ';
+        }
+
+        return header;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : ParseHeader
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] byte Header[]     -> 100 header bytes
+    //                    [IN] long HeaderOffset -> Header offset in the pack
+    //  Description     : Extracts file name, size and, when present, flags,
+    //                    nonce and stored size from a legacy text header.
+    //  Returns         : PackEntry
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static PackEntry ParseHeader(byte Header[], long HeaderOffset) throws IOException
+    {
+        String Tokens[] = new String(Header, StandardCharsets.UTF_8).trim().split(" ");
+
+        if (Tokens.length != 2 && Tokens.length != 4 && Tokens.length != 5)
+        {
+            throw new IOException("Corrupt header at offset " + HeaderOffset);
+        }
+
+        try
+        {
+            int iFlags = 0;
+            long Nonce = 0;
+            long Size = Long.parseLong(Tokens[1]);
+            long Stored = StoredSize(Size);
+
+            if (Tokens.length >= 4)
+            {
+                iFlags = Integer.parseInt(Tokens[2]);
+                Nonce = Long.parseUnsignedLong(Tokens[3], 16);
+            }
+
+            if (!ValidFlags(iFlags) || ((iFlags & FLAG_STORED) != 0) != (Tokens.length == 5))
+            {
+                throw new IOException("Unsupported entry flags " + iFlags + " at offset " + HeaderOffset);
+            }
+
+            if (Tokens.length == 5)
+            {
+                Stored = Long.parseLong(Tokens[4]);
+
+                if (Stored < 0 || (Stored % BLOCK_SIZE) != 0)
+                {
+                    throw new IOException("Corrupt header at offset " + HeaderOffset);
+                }
+            }
+
+            return new PackEntry(Tokens[0], Size, HeaderOffset, HeaderOffset + HEADER_SIZE,
+                                 iFlags, Nonce, Stored);
+        }
+        catch (NumberFormatException eobj)
+        {
+            throw new IOException("Corrupt header at offset " + HeaderOffset, eobj);
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : BinaryHeaderLength
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] byte Header[]     -> Start of a binary header
+    //                    [IN] int iAvailable    -> Valid bytes in Header
+    //                    [IN] long HeaderOffset -> Header offset in the pack
+    //  Description     : Decodes the name length and returns the length of
+    //                    the whole header (only the first 4 bytes are
+    //                    needed), either kind of binary header.
+    //  Returns         : int
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static int BinaryHeaderLength(byte Header[], int iAvailable, long HeaderOffset) throws IOException
+    {
+        int iName = 0;
+        int i = 1;
+
+        for (int Shift = 0; ; Shift += 7)
+        {
+            if (i >= iAvailable)
+            {
+                throw new EOFException("Truncated header at offset " + HeaderOffset);
+            }
+
+            int b = Header[i++] & 0xFF;
+            iName |= (b & 0x7F) << Shift;
+
+            if ((b & 0x80) == 0)
+            {
+                break;
+            }
+
+            if (Shift == 14)
+            {
+                throw new IOException("Corrupt header at offset " + HeaderOffset);
+            }
+        }
+
+        if (iName == 0 || iName > MAX_NAME_BYTES)
+        {
+            throw new IOException("Corrupt header at offset " + HeaderOffset);
+        }
+
+        return i + iName + BINARY_FIXED + ((Header[0] == BINARY_MAGIC_CRC) ? CRC_SIZE : 0);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : ParseBinaryHeader
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] byte Header[]     -> Complete binary header
+    //                    [IN] int iLength       -> Its length
+    //                    [IN] long HeaderOffset -> Header offset in the pack
+    //  Description     : Reads the fields at fixed offsets behind the name;
+    //                    the name is the only String created. The CRC32C,
+    //                    if present, becomes the entry's Hash.
+    //  Returns         : PackEntry
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static PackEntry ParseBinaryHeader(byte Header[], int iLength, long HeaderOffset) throws IOException
+    {
+        boolean bChecksum = Header[0] == BINARY_MAGIC_CRC;
+        int iFixed = iLength - BINARY_FIXED - (bChecksum ? CRC_SIZE : 0);
+        int iNameStart = NameStart(Header);
+
+        ByteBuffer Fields = ByteBuffer.wrap(Header, 0, iLength);
+        long Size = Fields.getLong(iFixed);
+        int iFlags = Fields.getInt(iFixed + 8);
+        long Nonce = Fields.getLong(iFixed + 12);
+        long Stored = Fields.getLong(iFixed + 20);
+
+        if (Size < 0 || !ValidFlags(iFlags) || Stored < 0 || (Stored % BLOCK_SIZE) != 0
+            || ((iFlags & FLAG_STORED) == 0 && Stored != StoredSize(Size)))
+        {
+            throw new IOException("Corrupt header at offset " + HeaderOffset);
+        }
+
+        String Name = new String(Header, iNameStart, iFixed - iNameStart, StandardCharsets.UTF_8);
+        PackEntry Entry = new PackEntry(Name, Size, HeaderOffset, HeaderOffset + iLength, iFlags, Nonce, Stored);
+
+        if (bChecksum)
+        {
+            Entry.Hash = Fields.getInt(iFixed + BINARY_FIXED) & 0xFFFFFFFFL;
+        }
+
+        return Entry;
+    }
+
+    // Offset of the name, just behind the length varint at offset 1
+    private static int NameStart(byte Header[])
+    {
+        int i = 1;
+
+        while ((Header[i] & 0x80) != 0)
+        {
+            i++;
+        }
+
+        return i + 1;
+    }
+
+    private static int VarintLength(int Value)
+    {
+        int iLength = 1;
+
+        while (Value >= 0x80)
+        {
+            Value >>>= 7;
+            iLength++;
+        }
+
+        return iLength;
+    }
+
+    // First header byte of either binary form
+    static boolean IsBinaryHeader(byte First)
+    {
+        return First == BINARY_MAGIC || First == BINARY_MAGIC_CRC;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : Algorithm
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] int iFlags -> Entry flags
+    //  Description     : Extracts the PackCipher algorithm id.
+    //  Returns         : int
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static int Algorithm(int iFlags)
+    {
+        return iFlags >>> ALGORITHM_SHIFT;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : ValidFlags
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] int iFlags -> Entry flags
+    //  Description     : Accepts known flag bits with a known algorithm.
+    //                    Algorithms without ECB, and chunked entries, must
+    //                    be in counter mode; chunked entries are never
+    //                    also deflated.
+    //  Returns         : boolean
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static boolean ValidFlags(int iFlags)
+    {
+        int iAlgorithm = Algorithm(iFlags);
+
+        if ((iFlags & ((1 << ALGORITHM_SHIFT) - 1) & ~KNOWN_FLAGS) != 0
+            || iAlgorithm >= PackCipher.ALGORITHM_COUNT)
+        {
+            return false;
+        }
+
+        if ((iFlags & FLAG_CHUNKED) != 0 && (iFlags & (FLAG_CTR | FLAG_DEFLATE)) != FLAG_CTR)
+        {
+            return false;
+        }
+
+        return iAlgorithm == PackCipher.ALGORITHM_BLOWFISH || (iFlags & FLAG_CTR) != 0;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : BlockMode
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] PackCipher cipher -> Cipher of an entry
+    //                                              without FLAG_CTR
+    //  Description     : The ECB side of the engine. ValidFlags only lets
+    //                    such entries name an algorithm with one, so this
+    //                    fails only on a programming error.
+    //  Returns         : BlockCipher
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static BlockCipher BlockMode(PackCipher cipher)
+    {
+        if (!(cipher instanceof BlockCipher))
+        {
+            throw new IllegalStateException("Cipher algorithm " + cipher.AlgorithmId() + " has no ECB mode");
+        }
+
+        return (BlockCipher) cipher;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : KeyCheck
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] PackCipher cipher -> Cipher with the pack keys
+    //  Description     : One block of keystream for a fixed nonce. Stored
+    //                    in the central directory so a later incremental
+    //                    run can tell whether its keys match the old pack
+    //                    without decrypting anything.
+    //  Returns         : long
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static long KeyCheck(PackCipher cipher)
+    {
+        byte Block[] = new byte[BLOCK_SIZE];
+
+        cipher.CryptCounter(Block, 0, BLOCK_SIZE, KEY_CHECK_NONCE, 0);
+
+        return ByteBuffer.wrap(Block).getLong();
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : EncryptChunk
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] PackCipher cipher -> Cipher
+    //                    [IN] PackEntry Entry  -> Entry the chunk belongs to
+    //                    [IN OUT] byte Data[]  -> Chunk, encrypted in place
+    //                    [IN] int iLength      -> Chunk length (multiple of 8)
+    //                    [IN] long Start       -> Offset of the chunk within
+    //                                             the entry (multiple of 8)
+    //  Description     : Encrypts one chunk in the entry's cipher mode.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static void EncryptChunk(PackCipher cipher, PackEntry Entry,
+                             byte Data[], int iLength, long Start)
+    {
+        if ((Entry.Flags & FLAG_CTR) != 0)
+        {
+            cipher.CryptCounter(Data, 0, iLength, Entry.Nonce, Start / BLOCK_SIZE);
+        }
+        else
+        {
+            BlockMode(cipher).EncryptBlocks(Data, 0, iLength);
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : DecryptChunk
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] PackCipher cipher -> Cipher
+    //                    [IN] PackEntry Entry  -> Entry the chunk belongs to
+    //                    [IN OUT] byte Data[]  -> Chunk, decrypted in place
+    //                    [IN] int iLength      -> Chunk length (multiple of 8)
+    //                    [IN] long Start       -> Offset of the chunk within
+    //                                             the entry (multiple of 8)
+    //  Description     : Decrypts one chunk in the entry's cipher mode.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static void DecryptChunk(PackCipher cipher, PackEntry Entry,
+                             byte Data[], int iLength, long Start)
+    {
+        if ((Entry.Flags & FLAG_CTR) != 0)
+        {
+            cipher.CryptCounter(Data, 0, iLength, Entry.Nonce, Start / BLOCK_SIZE);
+        }
+        else
+        {
+            BlockMode(cipher).DecryptBlocks(Data, 0, iLength);
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : EncryptMapped
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] PackCipher cipher -> Cipher
+    //                    [IN] PackEntry Entry  -> Entry the data belongs to
+    //                    [IN] ByteBuffer Src   -> Plaintext (multiple of 8)
+    //                    [OUT] ByteBuffer Dst  -> Ciphertext
+    //                    [IN] long Start       -> Offset within the entry
+    //  Description     : Buffer variant of EncryptChunk for mapped I/O and
+    //                    pooled direct buffers.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static void EncryptMapped(PackCipher cipher, PackEntry Entry,
+                              ByteBuffer Src, ByteBuffer Dst, long Start)
+    {
+        if ((Entry.Flags & FLAG_CTR) != 0)
+        {
+            cipher.CryptCounter(Src, Dst, Entry.Nonce, Start / BLOCK_SIZE);
+        }
+        else
+        {
+            BlockMode(cipher).EncryptBuffer(Src, Dst);
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : DecryptMapped
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] PackCipher cipher -> Cipher
+    //                    [IN] PackEntry Entry  -> Entry the data belongs to
+    //                    [IN] ByteBuffer Src   -> Ciphertext (multiple of 8)
+    //                    [OUT] ByteBuffer Dst  -> Plaintext
+    //                    [IN] long Start       -> Offset within the entry
+    //  Description     : Buffer variant of DecryptChunk for mapped I/O and
+    //                    pooled direct buffers.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static void DecryptMapped(PackCipher cipher, PackEntry Entry,
+                              ByteBuffer Src, ByteBuffer Dst, long Start)
+    {
+        if ((Entry.Flags & FLAG_CTR) != 0)
+        {
+            cipher.CryptCounter(Src, Dst, Entry.Nonce, Start / BLOCK_SIZE);
+        }
+        else
+        {
+            BlockMode(cipher).DecryptBuffer(Src, Dst);
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : ReadHeader
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] FileChannel ch    -> Packed file
+    //                    [IN] long HeaderOffset -> Header offset in the pack
+    //  Description     : Reads and parses a single header with one
+    //                    positional read.
+    //  Returns         : PackEntry
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static PackEntry ReadHeader(FileChannel ch, long HeaderOffset) throws IOException
+    {
+        return ReadHeader(ch, HeaderOffset, new byte[HEADER_SIZE]);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : CheckHeader
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] FileChannel ch    -> Packed file
+    //                    [IN] PackEntry Entry   -> Entry as listed in the
+    //                                             central directory
+    //  Description     : Reads the entry's header and checks that it
+    //                    describes the same entry, before its bytes are
+    //                    copied into another pack unread.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static void CheckHeader(FileChannel ch, PackEntry Entry) throws IOException
+    {
+        PackEntry Header = ReadHeader(ch, Entry.HeaderOffset);
+
+        if (!Header.Name.equals(Entry.Name) || Header.Size != Entry.Size || Header.Flags != Entry.Flags
+            || Header.Nonce != Entry.Nonce || Header.StoredSize() != Entry.StoredSize()
+            || Header.DataOffset != Entry.DataOffset)
+        {
+            throw new IOException("Central directory does not match header : " + Entry.Name);
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : ReadHeader
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] FileChannel ch    -> Open packed file
+    //                    [IN] long HeaderOffset -> Header offset in the pack
+    //                    [IN] byte Scratch[]    -> Reusable HEADER_SIZE buffer
+    //  Description     : Reads HEADER_SIZE bytes, which hold any legacy
+    //                    header and nearly every binary one; longer binary
+    //                    headers are read again in full.
+    //  Returns         : PackEntry
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    private static PackEntry ReadHeader(FileChannel ch, long HeaderOffset, byte Scratch[]) throws IOException
+    {
+        int iRead = ChannelIO.ReadFully(ch, ByteBuffer.wrap(Scratch), HeaderOffset);
+
+        if (iRead > 0 && IsBinaryHeader(Scratch[0]))
+        {
+            int iLength = BinaryHeaderLength(Scratch, iRead, HeaderOffset);
+            byte Header[] = Scratch;
+
+            if (iLength > Scratch.length)
+            {
+                Header = new byte[iLength];
+                iRead = ChannelIO.ReadFully(ch, ByteBuffer.wrap(Header), HeaderOffset);
+            }
+
+            if (iRead < iLength)
+            {
+                throw new EOFException("Truncated header at offset " + HeaderOffset);
+            }
+
+            return ParseBinaryHeader(Header, iLength, HeaderOffset);
+        }
+
+        if (iRead < HEADER_SIZE)
+        {
+            throw new EOFException("Truncated header at offset " + HeaderOffset);
+        }
+
+        return ParseHeader(Scratch, HeaderOffset);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : ScanEntries
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] FileChannel ch -> Open packed file
+    //  Description     : Lists every entry. Packs with a central directory
+    //                    are served from it; otherwise the headers are
+    //                    walked, jumping over each entry's contents. No
+    //                    data is read or decrypted.
+    //  Returns         : List<PackEntry> - Entries in pack order
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static List<PackEntry> ScanEntries(FileChannel ch) throws IOException
+    {
+        PackIndex Index = PackIndex.Read(ch);
+
+        if (Index != null)
+        {
+            return Index.Entries;
+        }
+
+        List<PackEntry> Entries = new ArrayList<>();
+
+        byte Scratch[] = new byte[HEADER_SIZE];
+
+        long Position = 0;
+        long End = ch.size();
+
+        while (Position < End)
+        {
+            PackEntry Entry = ReadHeader(ch, Position, Scratch);
+            Position = Entry.DataOffset + Entry.StoredSize();
+
+            if (Position > End)
+            {
+                throw new EOFException("Truncated entry : " + Entry.Name);
+            }
+
+            Entries.add(Entry);
+        }
+
+        return Entries;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : CheckCrc
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] PackEntry Entry -> Entry just restored
+    //                    [IN] long Crc        -> CRC32C of its contents
+    //  Description     : Compares the checksum with the one recorded when
+    //                    the entry was packed. Entries without one pass.
+    //                    A mismatch means a corrupt pack or wrong keys.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static void CheckCrc(PackEntry Entry, long Crc) throws ChecksumException
+    {
+        if (Entry.Hash >= 0 && Entry.Hash != Crc)
+        {
+            throw new ChecksumException(Entry.Name);
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : CombineCrc
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] long Partial[]  -> CRC32C of consecutive
+    //                                            segments, in order
+    //                    [IN] long Size       -> Total length
+    //                    [IN] long Segment    -> Length of every segment
+    //                                            but the last
+    //  Description     : CRC32C of the whole from the CRC32C of its parts,
+    //                    so segments checksummed on different threads need
+    //                    no second pass. Appending n bytes multiplies the
+    //                    first CRC by x^(8n) modulo the polynomial
+    //                    (zlib's crc32_combine, Castagnoli polynomial).
+    //  Returns         : long
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static long CombineCrc(long Partial[], long Size, long Segment)
+    {
+        long Crc = Partial[0];
+
+        for (int i = 1; i < Partial.length; i++)
+        {
+            long Length = Math.min(Segment, Size - i * Segment);
+
+            Crc = MultiplyModP(PowerModP(Length), Crc) ^ Partial[i];
+        }
+
+        return Crc;
+    }
+
+    private static final long CRC32C_POLY = 0x82F63B78L;    // Reflected Castagnoli
+    private static final long X_POWERS[] = new long[32];    // x^(2^k) modulo the polynomial
+
+    static
+    {
+        X_POWERS[0] = 1L << 30;                             // x^1
+
+        for (int k = 1; k < X_POWERS.length; k++)
+        {
+            X_POWERS[k] = MultiplyModP(X_POWERS[k - 1], X_POWERS[k - 1]);
+        }
+    }
+
+    // a * b modulo the polynomial, both in reflected bit order
+    private static long MultiplyModP(long a, long b)
+    {
+        long m = 1L << 31;
+        long p = 0;
+
+        while (true)
+        {
+            if ((a & m) != 0)
+            {
+                p ^= b;
+
+                if ((a & (m - 1)) == 0)
+                {
+                    return p;
+                }
+            }
+
+            m >>>= 1;
+            b = ((b & 1) != 0) ? (b >>> 1) ^ CRC32C_POLY : b >>> 1;
+        }
+    }
+
+    // x^(8 * Bytes) modulo the polynomial
+    private static long PowerModP(long Bytes)
+    {
+        long p = 1L << 31;                                  // x^0
+        int k = 3;
+
+        for (long n = Bytes; n != 0; n >>>= 1, k++)
+        {
+            if ((n & 1) != 0)
+            {
+                p = MultiplyModP(X_POWERS[k & 31], p);
+            }
+        }
+
+        return p;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : OutputPath
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] String Name -> Entry name ('/' separated)
+    //  Description     : Maps an entry name to a path below the current
+    //                    directory. Absolute names and names that climb out
+    //                    with ".." are rejected.
+    //  Returns         : Path
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static Path OutputPath(String Name) throws IOException
+    {
+        Path Target = Paths.get(Name.replace('/', File.separatorChar)).normalize();
+
+        if (Name.isEmpty() || Target.isAbsolute() || Target.startsWith(".."))
+        {
+            throw new IOException("Unsafe entry name : " + Name);
+        }
+
+        return Target;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : CheckChunkSize
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] int size -> Requested chunk size in bytes
+    //  Description     : Validates a chunk size: whole 8-byte blocks and no
+    //                    larger than MAX_CHUNK_SIZE.
+    //  Returns         : int - The validated size
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static int CheckChunkSize(int size)
+    {
+        if (size < BLOCK_SIZE || size > MAX_CHUNK_SIZE || (size % BLOCK_SIZE) != 0)
+        {
+            throw new IllegalArgumentException("Invalid chunk size : " + size);
+        }
+
+        return size;
+    }
+}
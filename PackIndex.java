@@ -0,0 +1,240 @@
+package MarvellousPackerUnpacker;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/////////////////////////////////////////////////////////////////////////
+//
+//  Class :         PackIndex
+//  Description :   Optional central directory stored at the end of a
+//                  packed file, modelled on the ZIP layout. After the
+//                  last entry comes the directory (an 8-byte marker that
+//                  cannot start a header, the entry count, a key check
+//                  value, then one record per entry: name (unsigned
+//                  short length and UTF-8 bytes, as in the headers),
+//                  header offset, stored size, original size, flags,
+//                  nonce, source mtime, CRC32C and header length)
+//                  followed by a fixed 32-byte footer:
+//
+//                      magic "MVPKDIR1" | int version | int entry count |
+//                      long directory offset | long directory length
+//
+//                  Packs without the footer are plain legacy packs.
+//  Author :        Rutik Shivaji Thitame
+//
+/////////////////////////////////////////////////////////////////////////
+
+final class PackIndex
+{
+    static final long MAGIC = 0x4D56504B44495231L;   // "MVPKDIR1"
+    static final long MARKER = 0xFF4D56504B444952L;  // "\xFFMVPKDIR", starts the directory
+    static final int VERSION = 1;                    // Directory format version
+    static final int FOOTER_SIZE = 32;               // Fixed footer length
+
+    final List<PackEntry> Entries;   // Entries in pack order
+    final long DirectoryOffset;      // First byte after the entry data
+    final long KeyCheck;             // PackFormat.KeyCheck under the pack's keys
+    private final Map<String, PackEntry> ByName;    // Last entry of each name
+
+    private PackIndex(List<PackEntry> Entries, long DirectoryOffset, long KeyCheck)
+    {
+        this.Entries = Entries;
+        this.DirectoryOffset = DirectoryOffset;
+        this.KeyCheck = KeyCheck;
+        this.ByName = new HashMap<>(Entries.size() * 4 / 3 + 1);
+
+        // Later entries replace earlier ones, as with a full unpack
+        for (PackEntry Entry : Entries)
+        {
+            ByName.put(Entry.Name, Entry);
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : Build
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] long Position            -> End of entry data
+    //                    [IN] List<PackEntry> Entries  -> Entries in pack order
+    //                    [IN] long KeyCheck            -> PackFormat.KeyCheck
+    //  Description     : Serializes the central directory and footer for a
+    //                    pack whose entry data ends at Position.
+    //  Returns         : byte[] - Directory followed by footer
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static byte[] Build(long Position, List<PackEntry> Entries, long KeyCheck) throws IOException
+    {
+        ByteArrayOutputStream Bytes = new ByteArrayOutputStream(Entries.size() * 64 + FOOTER_SIZE);
+        DataOutputStream Out = new DataOutputStream(Bytes);
+
+        Out.writeLong(MARKER);
+        Out.writeInt(Entries.size());
+        Out.writeLong(KeyCheck);
+
+        for (PackEntry Entry : Entries)
+        {
+            // PackFormat.HeaderLength kept the name within a short when it was added
+            byte Name[] = Entry.Name.getBytes(StandardCharsets.UTF_8);
+
+            Out.writeShort(Name.length);
+            Out.write(Name);
+            Out.writeLong(Entry.HeaderOffset);
+            Out.writeLong(Entry.StoredSize());
+            Out.writeLong(Entry.Size);
+            Out.writeInt(Entry.Flags);
+            Out.writeLong(Entry.Nonce);
+            Out.writeLong(Entry.Modified);
+            Out.writeLong(Entry.Hash);
+            Out.writeInt((int) (Entry.DataOffset - Entry.HeaderOffset));
+        }
+
+        int iLength = Out.size();
+
+        // Fixed footer pointing back at the directory
+        Out.writeLong(MAGIC);
+        Out.writeInt(VERSION);
+        Out.writeInt(Entries.size());
+        Out.writeLong(Position);
+        Out.writeLong(iLength);
+        Out.flush();
+
+        return Bytes.toByteArray();
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : Write
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] FileChannel ch           -> Packed file
+    //                    [IN] long Position            -> End of entry data
+    //                    [IN] List<PackEntry> Entries  -> Entries in pack order
+    //                    [IN] long KeyCheck            -> PackFormat.KeyCheck
+    //  Description     : Writes the central directory and footer at the
+    //                    given position with positional writes.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static void Write(FileChannel ch, long Position, List<PackEntry> Entries, long KeyCheck) throws IOException
+    {
+        ChannelIO.WriteFully(ch, ByteBuffer.wrap(Build(Position, Entries, KeyCheck)), Position);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : Read
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] FileChannel ch -> Packed file
+    //  Description     : Reads the footer and, when present, the central
+    //                    directory it points to.
+    //  Returns         : PackIndex - null for packs without a directory
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static PackIndex Read(FileChannel ch) throws IOException
+    {
+        long FileSize = ch.size();
+
+        if (FileSize < FOOTER_SIZE)
+        {
+            return null;
+        }
+
+        ByteBuffer Footer = ByteBuffer.allocate(FOOTER_SIZE);
+
+        if (ChannelIO.ReadFully(ch, Footer, FileSize - FOOTER_SIZE) < FOOTER_SIZE
+            || Footer.getLong(0) != MAGIC)
+        {
+            return null;
+        }
+
+        int iVersion = Footer.getInt(8);
+        int iCount = Footer.getInt(12);
+        long Offset = Footer.getLong(16);
+        long Length = Footer.getLong(24);
+
+        if (iVersion != VERSION)
+        {
+            throw new IOException("Unsupported directory version " + iVersion);
+        }
+
+        if (Offset < 0 || Length < 4 || Length > Integer.MAX_VALUE
+            || Offset + Length + FOOTER_SIZE != FileSize)
+        {
+            throw new IOException("Corrupt central directory");
+        }
+
+        ByteBuffer Directory = ByteBuffer.allocate((int) Length);
+
+        if (ChannelIO.ReadFully(ch, Directory, Offset) < Length)
+        {
+            throw new EOFException("Truncated central directory");
+        }
+
+        DataInputStream In = new DataInputStream(
+            new ByteArrayInputStream(Directory.array()));
+
+        if (In.readLong() != MARKER || In.readInt() != iCount)
+        {
+            throw new IOException("Corrupt central directory");
+        }
+
+        long KeyCheck = In.readLong();
+
+        List<PackEntry> Entries = new ArrayList<>(iCount);
+
+        for (int i = 0; i < iCount; i++)
+        {
+            byte NameBytes[] = new byte[In.readUnsignedShort()];
+
+            In.readFully(NameBytes);
+
+            String Name = new String(NameBytes, StandardCharsets.UTF_8);
+            long HeaderOffset = In.readLong();
+            long StoredSize = In.readLong();
+            long Size = In.readLong();
+            int iFlags = In.readInt();
+            long Nonce = In.readLong();
+            long Modified = In.readLong();
+            long Hash = In.readLong();
+            int iHeader = In.readInt();
+
+            PackEntry Entry = new PackEntry(Name, Size, HeaderOffset,
+                                            HeaderOffset + iHeader, iFlags, Nonce, StoredSize);
+            Entry.Modified = Modified;
+            Entry.Hash = Hash;
+
+            if ((StoredSize % PackFormat.BLOCK_SIZE) != 0 || iHeader <= 0 || HeaderOffset < 0
+                || Entry.DataOffset + StoredSize > Offset)
+            {
+                throw new IOException("Corrupt central directory entry : " + Name);
+            }
+
+            Entries.add(Entry);
+        }
+
+        return new PackIndex(Entries, Offset, KeyCheck);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : Find
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] String Name -> Entry name
+    //  Description     : Looks up an entry by name in constant time (the
+    //                    last one wins when a name occurs twice, as with a
+    //                    full unpack). The table is built once, when the
+    //                    directory is read.
+    //  Returns         : PackEntry - null if not present
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    PackEntry Find(String Name)
+    {
+        return ByName.get(Name);
+    }
+}
@@ -0,0 +1,617 @@
+package MarvellousPackerUnpacker;
+
+import java.util.*;
+import java.util.function.IntSupplier;
+import javax.management.JMException;
+
+/////////////////////////////////////////////////////////////////////////
+//
+//  Class :         PackJob
+//  Description :   One pack, unpack, verify, merge or rekey run with its
+//                  options, as listed in a batch manifest or built by
+//                  the GUI, and executed by JobScheduler. A manifest
+//                  line reads
+//
+//                      pack   <directory> <pack file> <key1> <key2> [option=value]...
+//                      unpack <pack file> <key1> <key2> [option=value]...
+//                      verify <pack file> <key1> <key2> [option=value]...
+//                      merge  <pack file> <key1> <key2> <input pack>... [option=value]...
+//                      rekey  <pack file> <key1> <key2> <new key1> <new key2> [option=value]...
+//
+//                  Tokens may be double quoted. Every kind takes name.
+//                  Options for pack and unpack: par, chunk, mapped,
+//                  pipeline (cipher threads overlapping a sequential
+//                  job's I/O); pack only: index, ctr, recursive, level,
+//                  algorithm (blowfish or aes), incremental, hash,
+//                  dedup, legacy, volume (bytes per volume of a split
+//                  pack); unpack only: out, match (a glob, or "regex:"
+//                  pattern, of the entries to restore). A verify job
+//                  checks every entry's CRC32C without writing files
+//                  and takes par, chunk, pipeline and match. A merge job copies the entries of its
+//                  input packs (named before any option, without "=")
+//                  into a new pack and takes match, conflict (keep,
+//                  first, last or rename), index and volume. A rekey
+//                  job re-encrypts a pack in place under the new keys
+//                  and takes par, chunk and force (rewrite even when
+//                  nothing in the pack can prove the current keys).
+//  Author :        Rutik Shivaji Thitame
+//
+/////////////////////////////////////////////////////////////////////////
+
+public final class PackJob
+{
+    public static final int PACK = 1;
+    public static final int UNPACK = 2;
+    public static final int VERIFY = 3;
+    public static final int MERGE = 4;
+    public static final int REKEY = 5;
+
+    final int Kind;             // PACK, UNPACK, VERIFY, MERGE or REKEY
+    final String Source;        // Directory (pack) or packed file (unpack, rekey)
+    final String Target;        // Packed file (pack, merge), null for unpack
+    final int key1, key2;       // Encryption keys
+    List<String> Inputs = Collections.emptyList();  // Packs to merge
+    int newkey1, newkey2;       // Keys a rekey job switches to
+
+    String Name;                // Label in results and JMX
+    int Parallelism = 1;        // Threads the job asks for
+    private final Map<String, String> Options = new LinkedHashMap<>();
+
+    private PackJob(int Kind, String Name, String Source, String Target, int key1, int key2)
+    {
+        this.Kind = Kind;
+        this.Name = Name;
+        this.Source = Source;
+        this.Target = Target;
+        this.key1 = key1;
+        this.key2 = key2;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : Pack
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] String Name     -> Job label
+    //                    [IN] String DirName  -> Directory to pack
+    //                    [IN] String PackName -> Packed file to create
+    //                    [IN] int key1        -> First encryption key
+    //                    [IN] int key2        -> Second encryption key
+    //  Description     : Describes a MarvellousPacker run.
+    //  Returns         : PackJob
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public static PackJob Pack(String Name, String DirName, String PackName, int key1, int key2)
+    {
+        return new PackJob(PACK, Name, DirName, PackName, key1, key2);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : Unpack
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] String Name     -> Job label
+    //                    [IN] String PackName -> Packed file to restore
+    //                    [IN] int key1        -> First encryption key
+    //                    [IN] int key2        -> Second encryption key
+    //  Description     : Describes a MarvellousUnpacker run.
+    //  Returns         : PackJob
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public static PackJob Unpack(String Name, String PackName, int key1, int key2)
+    {
+        return new PackJob(UNPACK, Name, PackName, null, key1, key2);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : Verify
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] String Name     -> Job label
+    //                    [IN] String PackName -> Packed file to check
+    //                    [IN] int key1        -> First encryption key
+    //                    [IN] int key2        -> Second encryption key
+    //  Description     : Describes a MarvellousUnpacker.VerifyActivity run.
+    //  Returns         : PackJob
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public static PackJob Verify(String Name, String PackName, int key1, int key2)
+    {
+        return new PackJob(VERIFY, Name, PackName, null, key1, key2);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : Merge
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] String Name         -> Job label
+    //                    [IN] String PackName     -> Merged pack to create
+    //                    [IN] List<String> Inputs -> Packed files to merge
+    //                    [IN] int key1            -> First encryption key
+    //                    [IN] int key2            -> Second encryption key
+    //  Description     : Describes a MarvellousMerger run.
+    //  Returns         : PackJob
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public static PackJob Merge(String Name, String PackName, List<String> Inputs, int key1, int key2)
+    {
+        if (Inputs.isEmpty())
+        {
+            throw new IllegalArgumentException("merge needs at least one input pack");
+        }
+
+        PackJob Job = new PackJob(MERGE, Name, null, PackName, key1, key2);
+        Job.Inputs = new ArrayList<>(Inputs);
+        return Job;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : Rekey
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] String Name     -> Job label
+    //                    [IN] String PackName -> Packed file to re-encrypt
+    //                    [IN] int key1        -> Current first key
+    //                    [IN] int key2        -> Current second key
+    //                    [IN] int newkey1     -> New first key
+    //                    [IN] int newkey2     -> New second key
+    //  Description     : Describes a MarvellousRekeyer run.
+    //  Returns         : PackJob
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public static PackJob Rekey(String Name, String PackName, int key1, int key2, int newkey1, int newkey2)
+    {
+        PackJob Job = new PackJob(REKEY, Name, PackName, null, key1, key2);
+        Job.newkey1 = newkey1;
+        Job.newkey2 = newkey2;
+        return Job;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : Set
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] String Key   -> Option name (see class comment)
+    //                    [IN] String Value -> Option value
+    //  Description     : Records an option. It is checked right away by
+    //                    configuring a packer or unpacker that is never run.
+    //  Returns         : PackJob - this
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public PackJob Set(String Key, String Value)
+    {
+        if (Key.equals("name"))
+        {
+            Name = Value;
+            return this;
+        }
+
+        String Old = Options.put(Key, Value);
+
+        try
+        {
+            Configure(null, Integer.MAX_VALUE, null);
+        }
+        catch (RuntimeException eobj)
+        {
+            if (Old == null)
+            {
+                Options.remove(Key);
+            }
+            else
+            {
+                Options.put(Key, Old);
+            }
+
+            throw eobj;
+        }
+
+        if (Key.equals("par"))
+        {
+            Parallelism = Integer.parseInt(Value);
+        }
+
+        return this;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : Parse
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] String Line  -> Manifest line
+    //                    [IN] int iLineNo  -> Its number, for messages and
+    //                                         the default name "line<N>"
+    //  Description     : Reads one manifest line (see class comment).
+    //  Returns         : PackJob - null for blank lines and # comments
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public static PackJob Parse(String Line, int iLineNo)
+    {
+        List<String> Tokens = Tokenize(Line, iLineNo);
+
+        if (Tokens.isEmpty() || Tokens.get(0).startsWith("#"))
+        {
+            return null;
+        }
+
+        try
+        {
+            PackJob Job;
+            int iNext;
+
+            if (Tokens.get(0).equals("pack") && Tokens.size() >= 5)
+            {
+                Job = Pack("line" + iLineNo, Tokens.get(1), Tokens.get(2),
+                           Integer.parseInt(Tokens.get(3)), Integer.parseInt(Tokens.get(4)));
+                iNext = 5;
+            }
+            else if ((Tokens.get(0).equals("unpack") || Tokens.get(0).equals("verify")) && Tokens.size() >= 4)
+            {
+                Job = new PackJob(Tokens.get(0).equals("unpack") ? UNPACK : VERIFY, "line" + iLineNo,
+                                  Tokens.get(1), null,
+                                  Integer.parseInt(Tokens.get(2)), Integer.parseInt(Tokens.get(3)));
+                iNext = 4;
+            }
+            else if (Tokens.get(0).equals("merge") && Tokens.size() >= 5)
+            {
+                iNext = 4;
+
+                while (iNext < Tokens.size() && Tokens.get(iNext).indexOf('=') < 0)
+                {
+                    iNext++;
+                }
+
+                Job = Merge("line" + iLineNo, Tokens.get(1), Tokens.subList(4, iNext),
+                            Integer.parseInt(Tokens.get(2)), Integer.parseInt(Tokens.get(3)));
+            }
+            else if (Tokens.get(0).equals("rekey") && Tokens.size() >= 6)
+            {
+                Job = Rekey("line" + iLineNo, Tokens.get(1),
+                            Integer.parseInt(Tokens.get(2)), Integer.parseInt(Tokens.get(3)),
+                            Integer.parseInt(Tokens.get(4)), Integer.parseInt(Tokens.get(5)));
+                iNext = 6;
+            }
+            else
+            {
+                throw new IllegalArgumentException("expected pack <dir> <pack> <key1> <key2>, "
+                                                   + "unpack <pack> <key1> <key2>, verify <pack> <key1> <key2>, "
+                                                   + "merge <pack> <key1> <key2> <input>... "
+                                                   + "or rekey <pack> <key1> <key2> <newkey1> <newkey2>");
+            }
+
+            for (String Token : Tokens.subList(iNext, Tokens.size()))
+            {
+                int iEquals = Token.indexOf('=');
+
+                if (iEquals <= 0)
+                {
+                    throw new IllegalArgumentException("expected option=value : " + Token);
+                }
+
+                Job.Set(Token.substring(0, iEquals), Token.substring(iEquals + 1));
+            }
+
+            return Job;
+        }
+        catch (IllegalArgumentException eobj)
+        {
+            throw new IllegalArgumentException("Manifest line " + iLineNo + " : " + eobj.getMessage(), eobj);
+        }
+    }
+
+    // Splits on white space; double quotes group a token
+    private static List<String> Tokenize(String Line, int iLineNo)
+    {
+        List<String> Tokens = new ArrayList<>();
+        StringBuilder Token = new StringBuilder();
+        boolean bQuoted = false;
+        boolean bToken = false;
+
+        for (int i = 0; i < Line.length(); i++)
+        {
+            char ch = Line.charAt(i);
+
+            if (ch == '"')
+            {
+                bQuoted = !bQuoted;
+                bToken = true;
+            }
+            else if (Character.isWhitespace(ch) && !bQuoted)
+            {
+                if (bToken)
+                {
+                    Tokens.add(Token.toString());
+                    Token.setLength(0);
+                    bToken = false;
+                }
+            }
+            else
+            {
+                Token.append(ch);
+                bToken = true;
+            }
+        }
+
+        if (bQuoted)
+        {
+            throw new IllegalArgumentException("Manifest line " + iLineNo + " : unterminated quote");
+        }
+
+        if (bToken)
+        {
+            Tokens.add(Token.toString());
+        }
+
+        return Tokens;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : Run
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] boolean bPublish -> Register the job's metrics
+    //                                             over JMX while it runs
+    //  Description     : Runs the job on the calling thread. The result
+    //                    carries the activity's return code and the job's
+    //                    metrics. Any exception or error, out of memory
+    //                    included, becomes code -99 rather than escaping.
+    //  Returns         : JobResult
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public JobResult Run(boolean bPublish)
+    {
+        return Run(bPublish, Integer.MAX_VALUE, null);
+    }
+
+    // As Run, with the job's worker threads capped at iThreads and chunk
+    // buffers leased from Pool when not null
+    JobResult Run(boolean bPublish, int iThreads, BufferPool Pool)
+    {
+        PackMetrics Metrics = new PackMetrics();
+        long Start = System.nanoTime();
+        int iCode;
+
+        try
+        {
+            if (bPublish)
+            {
+                Metrics.Register(Name);
+            }
+
+            iCode = Configure(Metrics, iThreads, Pool).getAsInt();
+        }
+        catch (Exception eobj)
+        {
+            eobj.printStackTrace();
+            iCode = -99;
+        }
+        catch (Error eobj)
+        {
+            // Running out of memory (say, a huge chunk=) fails this job only
+            eobj.printStackTrace();
+            iCode = -99;
+        }
+        finally
+        {
+            try
+            {
+                Metrics.Unregister();
+            }
+            catch (JMException eobj)
+            {
+                eobj.printStackTrace();
+            }
+        }
+
+        return new JobResult(this, iCode, (System.nanoTime() - Start) / 1000000, Metrics);
+    }
+
+    // Builds the packer or unpacker with all options applied
+    private IntSupplier Configure(PackMetrics Metrics, int iThreads, BufferPool Pool)
+    {
+        int iParallelism = Math.min(Parallelism, iThreads);
+
+        if (Kind == PACK)
+        {
+            MarvellousPacker mpobj = new MarvellousPacker(Source, Target, key1, key2);
+
+            for (Map.Entry<String, String> Option : Options.entrySet())
+            {
+                String Value = Option.getValue();
+
+                switch (Option.getKey())
+                {
+                    case "par":         mpobj.SetParallelism(Integer.parseInt(Value)); break;
+                    case "chunk":       mpobj.SetChunkSize(Integer.parseInt(Value)); break;
+                    case "mapped":      mpobj.SetMemoryMapped(Flag(Value)); break;
+                    case "pipeline":    mpobj.SetPipeline(Integer.parseInt(Value)); break;
+                    case "index":       mpobj.SetWriteIndex(Flag(Value)); break;
+                    case "ctr":         mpobj.SetCounterMode(Flag(Value)); break;
+                    case "recursive":   mpobj.SetRecursive(Flag(Value)); break;
+                    case "level":       mpobj.SetCompressionLevel(Integer.parseInt(Value)); break;
+                    case "algorithm":   mpobj.SetAlgorithm(AlgorithmId(Value)); break;
+                    case "incremental": mpobj.SetIncremental(Flag(Value)); break;
+                    case "hash":        mpobj.SetCompareHash(Flag(Value)); break;
+                    case "dedup":       mpobj.SetDeduplicate(Flag(Value)); break;
+                    case "legacy":      mpobj.SetLegacyHeader(Flag(Value)); break;
+                    case "volume":      mpobj.SetVolumeSize(Long.parseLong(Value)); break;
+                    default:
+                        throw new IllegalArgumentException("unknown pack option : " + Option.getKey());
+                }
+            }
+
+            mpobj.SetParallelism(iParallelism);
+            mpobj.SetMetrics(Metrics);
+            mpobj.SetBufferPool(Pool);
+            return mpobj::PackingActivity;
+        }
+
+        if (Kind == MERGE)
+        {
+            MarvellousMerger mmobj = new MarvellousMerger(Target, Inputs, key1, key2);
+
+            for (Map.Entry<String, String> Option : Options.entrySet())
+            {
+                String Value = Option.getValue();
+
+                switch (Option.getKey())
+                {
+                    case "match":       mmobj.SetFilter(Value); break;
+                    case "conflict":    mmobj.SetConflict(ConflictId(Value)); break;
+                    case "index":       mmobj.SetWriteIndex(Flag(Value)); break;
+                    case "volume":      mmobj.SetVolumeSize(Long.parseLong(Value)); break;
+                    default:
+                        throw new IllegalArgumentException("unknown merge option : " + Option.getKey());
+                }
+            }
+
+            mmobj.SetMetrics(Metrics);
+            return mmobj::MergingActivity;
+        }
+
+        if (Kind == REKEY)
+        {
+            MarvellousRekeyer mrobj = new MarvellousRekeyer(Source, key1, key2, newkey1, newkey2);
+
+            for (Map.Entry<String, String> Option : Options.entrySet())
+            {
+                String Value = Option.getValue();
+
+                switch (Option.getKey())
+                {
+                    case "par":         mrobj.SetParallelism(Integer.parseInt(Value)); break;
+                    case "chunk":       mrobj.SetChunkSize(Integer.parseInt(Value)); break;
+                    case "force":       mrobj.SetForce(Flag(Value)); break;
+                    default:
+                        throw new IllegalArgumentException("unknown rekey option : " + Option.getKey());
+                }
+            }
+
+            mrobj.SetParallelism(iParallelism);
+            mrobj.SetMetrics(Metrics);
+            return mrobj::RekeyingActivity;
+        }
+
+        MarvellousUnpacker muobj = new MarvellousUnpacker(Source, key1, key2);
+
+        for (Map.Entry<String, String> Option : Options.entrySet())
+        {
+            String Value = Option.getValue();
+
+            if (Kind == VERIFY && (Option.getKey().equals("mapped") || Option.getKey().equals("out")))
+            {
+                throw new IllegalArgumentException("unknown verify option : " + Option.getKey());
+            }
+
+            switch (Option.getKey())
+            {
+                case "par":         muobj.SetParallelism(Integer.parseInt(Value)); break;
+                case "chunk":       muobj.SetChunkSize(Integer.parseInt(Value)); break;
+                case "mapped":      muobj.SetMemoryMapped(Flag(Value)); break;
+                case "pipeline":    muobj.SetPipeline(Integer.parseInt(Value)); break;
+                case "out":         muobj.SetOutputDirectory(Value); break;
+                case "match":       muobj.SetFilter(Value); break;
+                default:
+                    throw new IllegalArgumentException("unknown unpack option : " + Option.getKey());
+            }
+        }
+
+        muobj.SetParallelism(iParallelism);
+        muobj.SetMetrics(Metrics);
+        muobj.SetBufferPool(Pool);
+        return (Kind == VERIFY) ? muobj::VerifyActivity : muobj::UnpakingActivity;
+    }
+
+    private static boolean Flag(String Value)
+    {
+        if (!Value.equals("true") && !Value.equals("false"))
+        {
+            throw new IllegalArgumentException("expected true or false : " + Value);
+        }
+
+        return Value.equals("true");
+    }
+
+    private static int AlgorithmId(String Value)
+    {
+        switch (Value)
+        {
+            case "blowfish": return PackCipher.ALGORITHM_BLOWFISH;
+            case "aes":      return PackCipher.ALGORITHM_AES;
+            default:
+                throw new IllegalArgumentException("unknown algorithm : " + Value);
+        }
+    }
+
+    private static int ConflictId(String Value)
+    {
+        switch (Value)
+        {
+            case "keep":   return MarvellousMerger.CONFLICT_KEEP;
+            case "first":  return MarvellousMerger.CONFLICT_FIRST;
+            case "last":   return MarvellousMerger.CONFLICT_LAST;
+            case "rename": return MarvellousMerger.CONFLICT_RENAME;
+            default:
+                throw new IllegalArgumentException("unknown conflict policy : " + Value);
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : Describe
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] int iCode -> Return code of the activity
+    //  Description     : Text for a return code of this kind of job.
+    //  Returns         : String
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public String Describe(int iCode)
+    {
+        if (iCode > 0)
+        {
+            switch (Kind)
+            {
+                case PACK:   return "Files packed: " + iCode;
+                case UNPACK: return "Files unpacked: " + iCode;
+                case MERGE:  return "Entries merged: " + iCode;
+                case REKEY:  return "Entries rekeyed: " + iCode;
+                default:     return "Entries verified: " + iCode;
+            }
+        }
+
+        switch (iCode)
+        {
+            case -1:
+                return (Kind == PACK || Kind == MERGE) ? "Pack file already exists" : "Pack file not found";
+            case -2:
+                return (Kind == MERGE) ? "Input pack not found" : "Directory not found";
+            case -3:
+                return (Kind == MERGE) ? "No entries in the input packs"
+                     : (Kind == REKEY) ? "No entries in the pack" : "No files in directory";
+            case -4:
+                return "No entry matches the filter";
+            case -5:
+                return (Kind == MERGE) ? "Input pack written with other keys"
+                     : (Kind == REKEY) ? "Pack written with other keys"
+                                       : "Checksum mismatch (corrupt pack or wrong keys)";
+            case -6:
+                return (Kind == REKEY) ? "Current keys cannot be checked (use force=true)"
+                                       : "No entry carries a checksum";
+            default:
+                return "Unknown exception occurred";
+        }
+    }
+
+    public String GetName()
+    {
+        return Name;
+    }
+}
@@ -0,0 +1,46 @@
+package MarvellousPackerUnpacker;
+
+/////////////////////////////////////////////////////////////////////////
+//
+//  Interface :     PackListener
+//  Description:    Receives per-entry progress events from a packing or
+//                  unpacking run, registered with PackMetrics.AddListener.
+//                  With parallelism above 1 the events arrive on worker
+//                  threads, possibly several at once, so implementations
+//                  must be thread safe and should return quickly.
+//  Author :        Rutik Shivaji Thitame
+//  Date   :        16/09/2025
+//
+/////////////////////////////////////////////////////////////////////////
+
+public interface PackListener
+{
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : EntryStarted
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] PackEntry Entry -> Entry about to be processed
+    //  Description     : Called before any data of the entry is read.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    default void EntryStarted(PackEntry Entry)
+    {
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : EntryFinished
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] PackEntry Entry -> Entry as finally stored
+    //                    [IN] long Nanos      -> Time since EntryStarted
+    //  Description     : Called once all data of the entry is written.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    default void EntryFinished(PackEntry Entry, long Nanos)
+    {
+    }
+}
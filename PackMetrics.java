@@ -0,0 +1,338 @@
+package MarvellousPackerUnpacker;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/////////////////////////////////////////////////////////////////////////
+//
+//  Class :         PackMetrics
+//  Description :   Counters of a packing or unpacking run: entries
+//                  started and finished, bytes and time spent reading,
+//                  in the cipher and writing, and a histogram of entry
+//                  latencies. Handed to MarvellousPacker.SetMetrics or
+//                  MarvellousUnpacker.SetMetrics, and optionally
+//                  published over JMX with Register. One object may be
+//                  reused for several runs; totals accumulate until
+//                  Reset. Without metrics the packer and unpacker do no
+//                  timing at all.
+//  Author :        Rutik Shivaji Thitame
+//
+/////////////////////////////////////////////////////////////////////////
+
+public class PackMetrics implements PackMetricsMBean
+{
+    static final int BUCKETS = 40;   // 1 us up to about 6 days
+
+    private final LongAdder EntriesStarted = new LongAdder();
+    private final LongAdder EntriesFinished = new LongAdder();
+    private final LongAdder BytesRead = new LongAdder();
+    private final LongAdder BytesEncrypted = new LongAdder();
+    private final LongAdder BytesWritten = new LongAdder();
+    private final LongAdder ReadNanos = new LongAdder();
+    private final LongAdder CipherNanos = new LongAdder();
+    private final LongAdder WriteNanos = new LongAdder();
+    private final AtomicLongArray Latency = new AtomicLongArray(BUCKETS);
+    private final List<PackListener> Listeners = new CopyOnWriteArrayList<>();
+
+    private volatile long EntriesTotal = -1;
+    private ObjectName Name = null;  // Set while registered
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : AddListener
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] PackListener Listener -> Receiver of entry events
+    //  Description     : Forwards every entry event to Listener.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void AddListener(PackListener Listener)
+    {
+        Listeners.add(Objects.requireNonNull(Listener));
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : RemoveListener
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] PackListener Listener -> Listener to drop
+    //  Description     : Stops forwarding events to Listener.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void RemoveListener(PackListener Listener)
+    {
+        Listeners.remove(Listener);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : Register
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] String Label -> Distinguishes several jobs
+    //  Description     : Publishes the counters on the platform MBean
+    //                    server as
+    //                    MarvellousPackerUnpacker:type=PackMetrics,name=Label
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public synchronized void Register(String Label) throws JMException
+    {
+        if (Name != null)
+        {
+            throw new IllegalStateException("Already registered as " + Name);
+        }
+
+        ObjectName Object = new ObjectName("MarvellousPackerUnpacker:type=PackMetrics,name="
+                                           + ObjectName.quote(Label));
+
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, Object);
+        Name = Object;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : Unregister
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : None
+    //  Description     : Removes the MBean published by Register, if any.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public synchronized void Unregister() throws JMException
+    {
+        if (Name != null)
+        {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(Name);
+            Name = null;
+        }
+    }
+
+    // Start of a timed step, 0 when nothing is measured
+    static long Now(PackMetrics Metrics)
+    {
+        return (Metrics == null) ? 0 : System.nanoTime();
+    }
+
+    void Expect(long Entries)
+    {
+        EntriesTotal = Entries;
+    }
+
+    // Each step records the time since Since and returns the current
+    // time, which starts the next step
+    long Read(long Bytes, long Since)
+    {
+        long Now = System.nanoTime();
+
+        BytesRead.add(Bytes);
+        ReadNanos.add(Now - Since);
+
+        return Now;
+    }
+
+    long Encrypted(long Bytes, long Since)
+    {
+        long Now = System.nanoTime();
+
+        BytesEncrypted.add(Bytes);
+        CipherNanos.add(Now - Since);
+
+        return Now;
+    }
+
+    long Written(long Bytes, long Since)
+    {
+        long Now = System.nanoTime();
+
+        BytesWritten.add(Bytes);
+        WriteNanos.add(Now - Since);
+
+        return Now;
+    }
+
+    // Bytes both read and written by one copy (transferTo, mappings);
+    // the time counts as write time
+    long Transferred(long Bytes, long Since)
+    {
+        BytesRead.add(Bytes);
+
+        return Written(Bytes, Since);
+    }
+
+    void EntryStarted(PackEntry Entry)
+    {
+        EntriesStarted.increment();
+
+        for (PackListener Listener : Listeners)
+        {
+            Listener.EntryStarted(Entry);
+        }
+    }
+
+    void EntryFinished(PackEntry Entry, long Since)
+    {
+        long Nanos = System.nanoTime() - Since;
+        long Micros = Math.max(Nanos / 1000, 1);
+
+        EntriesFinished.increment();
+        Latency.incrementAndGet(Math.min(63 - Long.numberOfLeadingZeros(Micros), BUCKETS - 1));
+
+        for (PackListener Listener : Listeners)
+        {
+            Listener.EntryFinished(Entry, Nanos);
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : LatencyPercentile
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] double Fraction -> 0.5 for the median, ...
+    //  Description     : Upper bound of the histogram bucket holding the
+    //                    given fraction of entry latencies.
+    //  Returns         : long - Microseconds, 0 if no entry finished yet
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public long LatencyPercentile(double Fraction)
+    {
+        long Counts[] = getLatencyHistogram();
+        long Total = 0;
+
+        for (long Count : Counts)
+        {
+            Total += Count;
+        }
+
+        long Seen = 0;
+
+        for (int i = 0; i < Counts.length; i++)
+        {
+            Seen += Counts[i];
+
+            if (Total > 0 && Seen >= Math.ceil(Fraction * Total))
+            {
+                return 2L << i;
+            }
+        }
+
+        return 0;
+    }
+
+    @Override
+    public long getEntriesTotal()
+    {
+        return EntriesTotal;
+    }
+
+    @Override
+    public long getEntriesStarted()
+    {
+        return EntriesStarted.sum();
+    }
+
+    @Override
+    public long getEntriesFinished()
+    {
+        return EntriesFinished.sum();
+    }
+
+    @Override
+    public long getBytesRead()
+    {
+        return BytesRead.sum();
+    }
+
+    @Override
+    public long getBytesEncrypted()
+    {
+        return BytesEncrypted.sum();
+    }
+
+    @Override
+    public long getBytesWritten()
+    {
+        return BytesWritten.sum();
+    }
+
+    @Override
+    public long getReadNanos()
+    {
+        return ReadNanos.sum();
+    }
+
+    @Override
+    public long getCipherNanos()
+    {
+        return CipherNanos.sum();
+    }
+
+    @Override
+    public long getWriteNanos()
+    {
+        return WriteNanos.sum();
+    }
+
+    @Override
+    public long[] getLatencyHistogram()
+    {
+        long Counts[] = new long[BUCKETS];
+
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            Counts[i] = Latency.get(i);
+        }
+
+        return Counts;
+    }
+
+    @Override
+    public long getLatencyP50Micros()
+    {
+        return LatencyPercentile(0.5);
+    }
+
+    @Override
+    public long getLatencyP99Micros()
+    {
+        return LatencyPercentile(0.99);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : Reset
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : None
+    //  Description     : Sets every counter back to zero, for example
+    //                    between two jobs sharing one MBean.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    @Override
+    public void Reset()
+    {
+        EntriesTotal = -1;
+
+        for (LongAdder Counter : new LongAdder[] { EntriesStarted, EntriesFinished, BytesRead, BytesEncrypted,
+                                                   BytesWritten, ReadNanos, CipherNanos, WriteNanos })
+        {
+            Counter.reset();
+        }
+
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            Latency.set(i, 0);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package MarvellousPackerUnpacker;
+
+/////////////////////////////////////////////////////////////////////////
+//
+//  Interface :     PackMetricsMBean
+//  Description:    JMX view of PackMetrics. Standard MBean introspection
+//                  only turns methods named getXxx into attributes, so
+//                  unlike the rest of the code these start in lower case.
+//  Author :        Rutik Shivaji Thitame
+//  Date   :        16/09/2025
+//
+/////////////////////////////////////////////////////////////////////////
+
+public interface PackMetricsMBean
+{
+    long getEntriesTotal();          // Entries expected, -1 if unknown
+    long getEntriesStarted();
+    long getEntriesFinished();
+
+    long getBytesRead();             // From source files or the pack
+    long getBytesEncrypted();        // Encrypted or decrypted
+    long getBytesWritten();          // To the pack or restored files
+
+    long getReadNanos();             // Time spent in each stage,
+    long getCipherNanos();           // summed over all threads
+    long getWriteNanos();
+
+    long[] getLatencyHistogram();    // Entries per power-of-two microseconds
+    long getLatencyP50Micros();
+    long getLatencyP99Micros();
+
+    void Reset();
+}
@@ -0,0 +1,407 @@
+package MarvellousPackerUnpacker;
+
+import java.io.*;
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.zip.CRC32C;
+
+/////////////////////////////////////////////////////////////////////////
+//
+//  Class :         PackerOutputStream
+//  Description :   Writes a packed file to any OutputStream, one entry
+//                  at a time, in the style of ZipOutputStream. Entry
+//                  data is encrypted incrementally through a fixed-size
+//                  buffer, so memory use does not depend on entry size
+//                  and nothing has to be staged on disk first. The
+//                  output is the same format MarvellousPacker writes,
+//                  except that headers go out before the contents and
+//                  so carry no CRC32C; the central directory, if
+//                  written, still records one for every entry.
+//  Author :        Rutik Shivaji Thitame
+//
+/////////////////////////////////////////////////////////////////////////
+
+public class PackerOutputStream extends FilterOutputStream
+{
+    private PackCipher cipher;                   // Cipher shared by all entries
+    private final int key1, key2;                // Kept for SetAlgorithm
+    private byte Buffer[];                       // Pending plaintext (multiple of 8)
+    private int iFill = 0;                       // Bytes pending in Buffer
+
+    private PackEntry Current = null;            // Entry being written
+    private long Written = 0;                    // Bytes accepted for Current
+    private long Encrypted = 0;                  // Bytes of Current already encrypted
+    private CRC32C Crc = new CRC32C();           // Checksum of Current so far
+
+    private long Position = 0;                   // Bytes written to the stream
+    private List<PackEntry> Entries = new ArrayList<>();
+    private boolean WriteIndex = false;          // Append central directory
+    private boolean CounterMode = false;         // CTR instead of ECB
+    private boolean LegacyHeader = false;        // 100-byte text headers
+    private SecureRandom Random = null;          // Nonce source for CTR
+    private boolean bFinished = false;
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : PackerOutputStream (Constructor)
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] OutputStream out -> Destination of the pack
+    //                    [IN] int key1         -> First encryption key
+    //                    [IN] int key2         -> Second encryption key
+    //  Description     : Wraps the destination with a 64 KiB buffer.
+    //  Returns         : None
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public PackerOutputStream(OutputStream out, int key1, int key2)
+    {
+        this(out, key1, key2, 64 << 10);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : PackerOutputStream (Constructor)
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] OutputStream out -> Destination of the pack
+    //                    [IN] int key1         -> First encryption key
+    //                    [IN] int key2         -> Second encryption key
+    //                    [IN] int iChunkSize   -> Buffer size (multiple of 8)
+    //  Description     : Wraps the destination with the given buffer size.
+    //  Returns         : None
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public PackerOutputStream(OutputStream out, int key1, int key2, int iChunkSize)
+    {
+        super(out);
+        this.key1 = key1;
+        this.key2 = key2;
+        this.cipher = new BlowfishEncryption(key1, key2);
+        this.Buffer = new byte[PackFormat.CheckChunkSize(iChunkSize)];
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : SetWriteIndex
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] boolean bIndex -> true to append a directory
+    //  Description     : Appends a central directory on Finish (see
+    //                    PackIndex). Must be set before the first entry.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void SetWriteIndex(boolean bIndex)
+    {
+        this.WriteIndex = bIndex;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : SetCounterMode
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] boolean bCounter -> true for CTR, false for ECB
+    //  Description     : Cipher mode for the following entries.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void SetCounterMode(boolean bCounter)
+    {
+        this.CounterMode = bCounter;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : SetLegacyHeader
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] boolean bLegacy -> true for text headers
+    //  Description     : Header format for the following entries (see
+    //                    MarvellousPacker.SetLegacyHeader).
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void SetLegacyHeader(boolean bLegacy)
+    {
+        this.LegacyHeader = bLegacy;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : SetAlgorithm
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] int id -> One of the PackCipher.ALGORITHM_ ids
+    //  Description     : Cipher engine for the following entries. Not
+    //                    allowed while an entry is open.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void SetAlgorithm(int id)
+    {
+        if (Current != null)
+        {
+            throw new IllegalStateException("Entry still open : " + Current.Name);
+        }
+
+        this.cipher = PackCipher.Create(id, key1, key2);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : PutNextEntry
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] String Name -> Entry name
+    //                    [IN] long Size   -> Exact number of bytes that will
+    //                                        be written for this entry
+    //  Description     : Closes the current entry (if any) and writes the
+    //                    header of a new one. The size goes into the header,
+    //                    so it must be known up front.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void PutNextEntry(String Name, long Size) throws IOException
+    {
+        EnsureOpen();
+
+        if (Size < 0)
+        {
+            throw new IllegalArgumentException("Invalid entry size : " + Size);
+        }
+
+        if (Current != null)
+        {
+            CloseEntry();
+        }
+
+        int iFlags = cipher.AlgorithmId() << PackFormat.ALGORITHM_SHIFT;
+        long Nonce = 0;
+
+        if (CounterMode || !(cipher instanceof BlockCipher))
+        {
+            if (Random == null)
+            {
+                Random = new SecureRandom();
+            }
+
+            iFlags |= PackFormat.FLAG_CTR;
+            Nonce = Random.nextLong();
+        }
+
+        PackEntry Entry = new PackEntry(Name, Size, Position,
+                                        Position + PackFormat.HeaderLength(Name, LegacyHeader, false), iFlags, Nonce);
+
+        out.write(PackFormat.BuildHeader(Entry, LegacyHeader));
+        Position = Entry.DataOffset;
+
+        Current = Entry;
+        Crc.reset();
+        Written = 0;
+        Encrypted = 0;
+        iFill = 0;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : write
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] int b -> Byte to write
+    //  Description     : Writes one byte of the current entry.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    @Override
+    public void write(int b) throws IOException
+    {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : write
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] byte b[]   -> Data
+    //                    [IN] int off    -> First byte
+    //                    [IN] int len    -> Number of bytes
+    //  Description     : Appends data to the current entry. Full buffers are
+    //                    encrypted and passed on right away.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    @Override
+    public void write(byte b[], int off, int len) throws IOException
+    {
+        EnsureOpen();
+
+        if (Current == null)
+        {
+            throw new IOException("No current entry; call PutNextEntry first");
+        }
+
+        if (Written + len > Current.Size)
+        {
+            throw new IOException("Entry larger than declared size : " + Current.Name);
+        }
+
+        Written += len;
+        Crc.update(b, off, len);
+
+        while (len > 0)
+        {
+            int iCopy = Math.min(len, Buffer.length - iFill);
+            System.arraycopy(b, off, Buffer, iFill, iCopy);
+
+            iFill += iCopy;
+            off += iCopy;
+            len -= iCopy;
+
+            if (iFill == Buffer.length)
+            {
+                FlushBuffer();
+            }
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : CloseEntry
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : None
+    //  Description     : Pads and encrypts the rest of the current entry.
+    //                    Fails if fewer bytes were written than declared.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void CloseEntry() throws IOException
+    {
+        EnsureOpen();
+
+        if (Current == null)
+        {
+            return;
+        }
+
+        if (Written != Current.Size)
+        {
+            throw new IOException("Entry smaller than declared size : " + Current.Name);
+        }
+
+        // Padding for last block
+        int iStored = (int) PackFormat.StoredSize(iFill);
+        Arrays.fill(Buffer, iFill, iStored, (byte) 0);
+        iFill = iStored;
+
+        FlushBuffer();
+
+        Position += Current.StoredSize();
+        Current.Hash = Crc.getValue();
+
+        if (WriteIndex)
+        {
+            Entries.add(Current);
+        }
+
+        Current = null;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : Finish
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : None
+    //  Description     : Closes the current entry and writes the central
+    //                    directory if requested, without closing the
+    //                    underlying stream.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void Finish() throws IOException
+    {
+        if (bFinished)
+        {
+            return;
+        }
+
+        CloseEntry();
+
+        if (WriteIndex)
+        {
+            out.write(PackIndex.Build(Position, Entries, PackFormat.KeyCheck(cipher)));
+        }
+
+        out.flush();
+        bFinished = true;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : close
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : None
+    //  Description     : Finishes the pack and closes the underlying stream.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    @Override
+    public void close() throws IOException
+    {
+        try
+        {
+            Finish();
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : FlushBuffer
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : None
+    //  Description     : Encrypts the pending bytes (a multiple of 8) in
+    //                    place and writes them out.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    private void FlushBuffer() throws IOException
+    {
+        if (iFill == 0)
+        {
+            return;
+        }
+
+        PackFormat.EncryptChunk(cipher, Current, Buffer, iFill, Encrypted);
+        out.write(Buffer, 0, iFill);
+
+        Encrypted += iFill;
+        iFill = 0;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : EnsureOpen
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : None
+    //  Description     : Rejects use after Finish.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    private void EnsureOpen() throws IOException
+    {
+        if (bFinished)
+        {
+            throw new IOException("Pack already finished");
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package MarvellousPackerUnpacker;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.zip.CRC32C;
+
+/////////////////////////////////////////////////////////////////////////
+//
+//  Class :         SmallBatch
+//  Description :   Collects consecutive small entries of one packing
+//                  run. Their contents are read back to back into one
+//                  buffer and encrypted together. Then all headers and
+//                  payloads are written with a single gathering write,
+//                  instead of two positional writes per file. The
+//                  bytes in the pack are the same either way. With
+//                  metrics, entries finish when their batch is written.
+//  Author :        Rutik Shivaji Thitame
+//
+/////////////////////////////////////////////////////////////////////////
+
+final class SmallBatch
+{
+    static final int SMALL_FILE_SIZE = 32 << 10;    // Batched up to this size
+    static final int MAX_ENTRIES = 512;             // Header + payload each, 1024 = IOV_MAX
+
+    private final FileChannel foobj;                // Packed file
+    private final PackCipher cipher;                // Shared cipher
+    private final boolean bLegacy;                  // Text headers
+    private final PackMetrics Metrics;              // Counters, or null
+    private final byte Data[];                      // Payloads back to back
+    private final ByteBuffer Parts[] = new ByteBuffer[2 * MAX_ENTRIES];
+    private final PackEntry Pending[] = new PackEntry[MAX_ENTRIES];
+    private final long Since[] = new long[MAX_ENTRIES];    // EntryStarted times
+    private final CRC32C Crc = new CRC32C();        // Reset for every entry
+
+    private int iEntries = 0;                       // Entries pending
+    private int iFill = 0;                          // Payload bytes pending
+    private boolean bCounter = false;               // Mode of the pending entries
+    private long Start = 0;                         // Header offset of the first one
+    private long End = 0;                           // End of the last one
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : SmallBatch (Constructor)
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] FileChannel foobj -> Packed file
+    //                    [IN] PackCipher cipher -> Cipher
+    //                    [IN] boolean bLegacy   -> true for text headers
+    //                    [IN] int iCapacity     -> Payload buffer size
+    //                                              (multiple of 8)
+    //                    [IN] PackMetrics Metrics -> Counters, or null
+    //  Description     : Allocates the payload buffer.
+    //  Returns         : None
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    SmallBatch(FileChannel foobj, PackCipher cipher, boolean bLegacy, int iCapacity, PackMetrics Metrics)
+    {
+        this.foobj = foobj;
+        this.cipher = cipher;
+        this.bLegacy = bLegacy;
+        this.Metrics = Metrics;
+        this.Data = new byte[iCapacity];
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : Add
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] File Src        -> File to pack
+    //                    [IN] PackEntry Entry -> Its entry (raw, at most
+    //                                            SMALL_FILE_SIZE and the
+    //                                            buffer size)
+    //                    [IN] long Started    -> When the entry started
+    //  Description     : Reads the file behind the pending payloads. The
+    //                    batch is flushed first if the entry does not
+    //                    directly follow it, does not fit, or uses the
+    //                    other cipher mode. If the file shrank after its
+    //                    size was taken, the gap is zero filled. The
+    //                    entry's CRC32C is taken before encryption.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    void Add(File Src, PackEntry Entry, long Started) throws IOException
+    {
+        int iStored = (int) Entry.StoredSize();
+        boolean bEntryCounter = (Entry.Flags & PackFormat.FLAG_CTR) != 0;
+
+        if (iEntries > 0 && (iEntries == MAX_ENTRIES || iFill + iStored > Data.length
+                             || Entry.HeaderOffset != End || bEntryCounter != bCounter))
+        {
+            Flush();
+        }
+
+        if (iEntries == 0)
+        {
+            Start = Entry.HeaderOffset;
+            bCounter = bEntryCounter;
+        }
+
+        int iRet = 0;
+        long Tick = PackMetrics.Now(Metrics);
+
+        if (Entry.Size > 0)
+        {
+            // A plain stream opens in about half the time of a channel
+            try (FileInputStream fiobj = new FileInputStream(Src))
+            {
+                iRet = fiobj.readNBytes(Data, iFill, (int) Entry.Size);
+            }
+        }
+
+        // Padding for last block (or for a file that shrank)
+        Arrays.fill(Data, iFill + iRet, iFill + iStored, (byte) 0);
+
+        if (Metrics != null)
+        {
+            Tick = Metrics.Read(iRet, Tick);
+        }
+
+        Crc.reset();
+        Crc.update(Data, iFill, (int) Entry.Size);
+        Entry.Hash = Crc.getValue();
+
+        // Each entry has its own counter; ECB is done for all at once
+        if (bCounter)
+        {
+            cipher.CryptCounter(Data, iFill, iStored, Entry.Nonce, 0);
+
+            if (Metrics != null)
+            {
+                Metrics.Encrypted(iStored, Tick);
+            }
+        }
+
+        Parts[2 * iEntries] = ByteBuffer.wrap(PackFormat.BuildHeader(Entry, bLegacy));
+        Parts[2 * iEntries + 1] = ByteBuffer.wrap(Data, iFill, iStored);
+        Pending[iEntries] = Entry;
+        Since[iEntries] = Started;
+
+        iEntries++;
+        iFill += iStored;
+        End = Entry.DataOffset + iStored;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : Flush
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : None
+    //  Description     : Encrypts ECB payloads in one pass and writes every
+    //                    pending header and payload in pack order.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    void Flush() throws IOException
+    {
+        if (iEntries == 0)
+        {
+            return;
+        }
+
+        long Tick = PackMetrics.Now(Metrics);
+
+        if (!bCounter && iFill > 0)
+        {
+            PackFormat.BlockMode(cipher).EncryptBlocks(Data, 0, iFill);
+
+            if (Metrics != null)
+            {
+                Tick = Metrics.Encrypted(iFill, Tick);
+            }
+        }
+
+        ChannelIO.WriteFully(foobj, Parts, 2 * iEntries, Start);
+
+        if (Metrics != null)
+        {
+            Metrics.Written(End - Start, Tick);
+
+            for (int i = 0; i < iEntries; i++)
+            {
+                Metrics.EntryFinished(Pending[i], Since[i]);
+            }
+        }
+
+        Arrays.fill(Parts, 0, 2 * iEntries, null);
+        Arrays.fill(Pending, 0, iEntries, null);
+        iEntries = 0;
+        iFill = 0;
+    }
+}
@@ -0,0 +1,515 @@
+package MarvellousPackerUnpacker;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/////////////////////////////////////////////////////////////////////////
+//
+//  Class :         UnpackerInputStream
+//  Description :   Reads a packed file from any InputStream, one entry
+//                  at a time, in the style of ZipInputStream. Entry
+//                  data is decrypted incrementally through a fixed-size
+//                  buffer (and inflated, for compressed entries), so
+//                  entries can be consumed without creating files. A
+//                  trailing central directory, if present, ends the
+//                  entry sequence. Entries whose header carries a
+//                  CRC32C are checked as their last byte is read, and
+//                  a mismatch throws ChecksumException.
+//  Author :        Rutik Shivaji Thitame
+//
+/////////////////////////////////////////////////////////////////////////
+
+public class UnpackerInputStream extends FilterInputStream
+{
+    private CipherSet Ciphers;                   // Engines by algorithm id
+    private PackCipher cipher = null;            // Engine of the current entry
+    private byte Header[] = new byte[PackFormat.HEADER_SIZE];   // Grows for long names
+    private byte Buffer[];                       // Decrypted data (multiple of 8)
+    private int iPos = 0;                        // Next byte to hand out
+    private int iLimit = 0;                      // End of valid bytes in Buffer
+
+    private PackEntry Current = null;            // Entry being read
+    private long Remaining = 0;                  // Original bytes not yet returned
+    private long StoredLeft = 0;                 // Ciphertext bytes not yet read
+    private long Decrypted = 0;                  // Ciphertext bytes of Current read
+
+    private Inflater Inf = null;                 // Reused for compressed entries
+    private boolean bInflate = false;            // Current entry is compressed
+    private CRC32C Crc = null;                   // Checksum of Current so far, if recorded
+
+    private long Position = 0;                   // Bytes consumed from the stream
+    private boolean bEnd = false;                // No more entries
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : UnpackerInputStream (Constructor)
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] InputStream in -> Source of the pack
+    //                    [IN] int key1       -> First encryption key
+    //                    [IN] int key2       -> Second encryption key
+    //  Description     : Wraps the source with a 64 KiB buffer.
+    //  Returns         : None
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public UnpackerInputStream(InputStream in, int key1, int key2)
+    {
+        this(in, key1, key2, 64 << 10);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : UnpackerInputStream (Constructor)
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] InputStream in   -> Source of the pack
+    //                    [IN] int key1         -> First encryption key
+    //                    [IN] int key2         -> Second encryption key
+    //                    [IN] int iChunkSize   -> Buffer size (multiple of 8)
+    //  Description     : Wraps the source with the given buffer size.
+    //  Returns         : None
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public UnpackerInputStream(InputStream in, int key1, int key2, int iChunkSize)
+    {
+        super(in);
+        this.Ciphers = new CipherSet(key1, key2);
+        this.Buffer = new byte[PackFormat.CheckChunkSize(iChunkSize)];
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : GetNextEntry
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : None
+    //  Description     : Skips whatever is left of the current entry and
+    //                    reads the next header. The entry's contents are
+    //                    then returned by read() until it returns -1.
+    //  Returns         : PackEntry - null when there are no more entries
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public PackEntry GetNextEntry() throws IOException
+    {
+        CloseEntry();
+
+        if (bEnd)
+        {
+            return null;
+        }
+
+        if (ReadFully(Header, 0, 1) == 0)
+        {
+            bEnd = true;
+            return null;
+        }
+
+        // A central directory starts with a byte no header can start with
+        if (Header[0] == (byte) (PackIndex.MARKER >>> 56))
+        {
+            bEnd = true;
+            return null;
+        }
+
+        int iLength = PackFormat.HEADER_SIZE;
+        int iHave = 1;
+
+        if (PackFormat.IsBinaryHeader(Header[0]))
+        {
+            // Name length varint, at most 3 bytes, then the rest
+            do
+            {
+                if (ReadFully(Header, iHave, 1) < 1)
+                {
+                    throw new EOFException("Truncated header at offset " + Position);
+                }
+            }
+            while ((Header[iHave++] & 0x80) != 0 && iHave < 4);
+
+            iLength = PackFormat.BinaryHeaderLength(Header, iHave, Position);
+
+            if (iLength > Header.length)
+            {
+                Header = Arrays.copyOf(Header, iLength);
+            }
+        }
+
+        if (ReadFully(Header, iHave, iLength - iHave) < iLength - iHave)
+        {
+            throw new EOFException("Truncated header at offset " + Position);
+        }
+
+        if (PackFormat.IsBinaryHeader(Header[0]))
+        {
+            Current = PackFormat.ParseBinaryHeader(Header, iLength, Position);
+        }
+        else
+        {
+            Current = PackFormat.ParseHeader(Header, Position);
+        }
+
+        Position += iLength;
+        cipher = Ciphers.For(Current);
+
+        Remaining = Current.Size;
+        StoredLeft = Current.StoredSize();
+        Decrypted = 0;
+        iPos = iLimit = 0;
+
+        bInflate = (Current.Flags & PackFormat.FLAG_DEFLATE) != 0;
+
+        if (Current.Hash >= 0)
+        {
+            if (Crc == null)
+            {
+                Crc = new CRC32C();
+            }
+
+            Crc.reset();
+        }
+
+        if (bInflate)
+        {
+            if (Inf == null)
+            {
+                Inf = new Inflater();
+            }
+
+            Inf.reset();
+        }
+
+        return Current;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : CloseEntry
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : None
+    //  Description     : Skips the rest of the current entry without
+    //                    decrypting it.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    public void CloseEntry() throws IOException
+    {
+        if (Current == null)
+        {
+            return;
+        }
+
+        while (StoredLeft > 0)
+        {
+            long Skipped = in.skip(StoredLeft);
+
+            if (Skipped <= 0)
+            {
+                // skip() may give up early; fall back to reading
+                int iRet = in.read(Buffer, 0, (int) Math.min(Buffer.length, StoredLeft));
+
+                if (iRet < 0)
+                {
+                    throw new EOFException("Truncated entry data : " + Current.Name);
+                }
+
+                Skipped = iRet;
+            }
+
+            StoredLeft -= Skipped;
+            Position += Skipped;
+        }
+
+        Current = null;
+        Remaining = 0;
+        iPos = iLimit = 0;
+        bInflate = false;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : read
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : None
+    //  Description     : Reads one byte of the current entry.
+    //  Returns         : int - The byte, or -1 at the end of the entry
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    @Override
+    public int read() throws IOException
+    {
+        byte One[] = new byte[1];
+
+        return (read(One, 0, 1) < 0) ? -1 : (One[0] & 0xFF);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : read
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [OUT] byte b[]  -> Destination
+    //                    [IN] int off    -> First byte to fill
+    //                    [IN] int len    -> Maximum number of bytes
+    //  Description     : Reads decrypted bytes of the current entry,
+    //                    refilling the buffer one chunk at a time.
+    //  Returns         : int - Bytes read, or -1 at the end of the entry
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    @Override
+    public int read(byte b[], int off, int len) throws IOException
+    {
+        if (Current == null || Remaining == 0)
+        {
+            return -1;
+        }
+
+        if (len == 0)
+        {
+            return 0;
+        }
+
+        if ((Current.Flags & PackFormat.FLAG_CHUNKED) != 0)
+        {
+            // References point backwards, which a stream cannot follow
+            throw new IOException("Deduplicated entry needs random access : " + Current.Name);
+        }
+
+        if (bInflate)
+        {
+            return ReadInflated(b, off, len);
+        }
+
+        if (iPos == iLimit)
+        {
+            Fill();
+        }
+
+        int iCopy = (int) Math.min(Math.min(len, iLimit - iPos), Remaining);
+        System.arraycopy(Buffer, iPos, b, off, iCopy);
+
+        iPos += iCopy;
+        Consumed(b, off, iCopy);
+
+        return iCopy;
+    }
+
+    // Counts bytes handed out and checks the entry once all are
+    private void Consumed(byte b[], int off, int len) throws IOException
+    {
+        Remaining -= len;
+
+        if (Current.Hash >= 0)
+        {
+            Crc.update(b, off, len);
+
+            if (Remaining == 0)
+            {
+                PackFormat.CheckCrc(Current, Crc.getValue());
+            }
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : ReadInflated
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [OUT] byte b[]  -> Destination
+    //                    [IN] int off    -> First byte to fill
+    //                    [IN] int len    -> Maximum number of bytes
+    //  Description     : Inflates bytes of a compressed entry, decrypting
+    //                    the next stored chunk whenever the inflater runs
+    //                    dry.
+    //  Returns         : int - Bytes read
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    private int ReadInflated(byte b[], int off, int len) throws IOException
+    {
+        try
+        {
+            while (true)
+            {
+                int iRet = Inf.inflate(b, off, (int) Math.min(len, Remaining));
+
+                if (iRet > 0)
+                {
+                    Consumed(b, off, iRet);
+                    return iRet;
+                }
+
+                if (Inf.finished() || Inf.needsDictionary() || StoredLeft == 0)
+                {
+                    throw new EOFException("Compressed data ends early : " + Current.Name);
+                }
+
+                if (Inf.needsInput())
+                {
+                    Fill();
+                    Inf.setInput(Buffer, 0, iLimit);
+                    iPos = iLimit;
+                }
+            }
+        }
+        catch (DataFormatException eobj)
+        {
+            throw new IOException("Corrupt compressed entry : " + Current.Name, eobj);
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : close
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : None
+    //  Description     : Releases the inflater and closes the source.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    @Override
+    public void close() throws IOException
+    {
+        if (Inf != null)
+        {
+            Inf.end();
+            Inf = null;
+        }
+
+        super.close();
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : skip
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] long n -> Bytes to skip
+    //  Description     : Skips bytes of the current entry (never past it).
+    //  Returns         : long - Bytes skipped
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    @Override
+    public long skip(long n) throws IOException
+    {
+        if (n <= 0)
+        {
+            return 0;
+        }
+
+        byte Scratch[] = new byte[(int) Math.min(4096, n)];
+        long Skipped = 0;
+
+        while (Skipped < n)
+        {
+            int iRet = read(Scratch, 0, (int) Math.min(Scratch.length, n - Skipped));
+
+            if (iRet < 0)
+            {
+                break;
+            }
+
+            Skipped += iRet;
+        }
+
+        return Skipped;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : available
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : None
+    //  Description     : Decrypted bytes readable without blocking.
+    //  Returns         : int
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    @Override
+    public int available() throws IOException
+    {
+        return bInflate ? 0 : (int) Math.min(iLimit - iPos, Remaining);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : markSupported
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : None
+    //  Description     : Mark/reset is not supported.
+    //  Returns         : boolean - false
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    @Override
+    public boolean markSupported()
+    {
+        return false;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : Fill
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : None
+    //  Description     : Reads and decrypts the next chunk of ciphertext of
+    //                    the current entry.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    private void Fill() throws IOException
+    {
+        int iWant = (int) Math.min(Buffer.length, StoredLeft);
+
+        if (ReadFully(Buffer, 0, iWant) < iWant)
+        {
+            throw new EOFException("Truncated entry data : " + Current.Name);
+        }
+
+        PackFormat.DecryptChunk(cipher, Current, Buffer, iWant, Decrypted);
+
+        Decrypted += iWant;
+        StoredLeft -= iWant;
+        Position += iWant;
+
+        iPos = 0;
+        iLimit = iWant;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : ReadFully
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [OUT] byte b[]  -> Destination
+    //                    [IN] int off    -> First byte to fill
+    //                    [IN] int len    -> Number of bytes wanted
+    //  Description     : Reads from the underlying stream until len bytes
+    //                    arrived or the stream ended.
+    //  Returns         : int - Bytes read
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    private int ReadFully(byte b[], int off, int len) throws IOException
+    {
+        int iTotal = 0;
+
+        while (iTotal < len)
+        {
+            int iRet = in.read(b, off + iTotal, len - iTotal);
+
+            if (iRet < 0)
+            {
+                break;
+            }
+
+            iTotal += iRet;
+        }
+
+        return iTotal;
+    }
+}
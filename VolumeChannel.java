@@ -0,0 +1,695 @@
+package MarvellousPackerUnpacker;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/////////////////////////////////////////////////////////////////////////
+//
+//  Class :         VolumeChannel
+//  Description :   A pack split into volumes of at most VolumeSize bytes,
+//                  seen as one FileChannel. The pack's bytes are cut at
+//                  fixed offsets, so entries may span volumes, and every
+//                  positional read or write goes straight to the volume
+//                  files it covers: concurrent writers at different
+//                  offsets fill different files at the same time. The
+//                  volumes of "Demo.pack" are "Demo.pack.001",
+//                  "Demo.pack.002", ... and "Demo.pack" itself holds a
+//                  fixed 40-byte manifest:
+//
+//                      magic "\xFFMVPKVOL" | int version | int volume count |
+//                      long volume size | long total size | long generation
+//
+//                  A pack replaced by Move (incremental repack, key
+//                  rotation) gets a new generation g > 0, with volumes
+//                  "Demo.pack.g<g>.001", ... The old volumes stay in
+//                  place until the manifest has been renamed over the
+//                  old one, so that rename alone switches from one
+//                  complete pack to the other.
+//
+//                  The marker byte cannot start a header, so a manifest
+//                  is never mistaken for a single-file pack.
+//  Author :        Rutik Shivaji Thitame
+//
+/////////////////////////////////////////////////////////////////////////
+
+final class VolumeChannel extends FileChannel
+{
+    static final long MAGIC = 0xFF4D56504B564F4CL;   // "\xFFMVPKVOL"
+    static final int VERSION = 1;                    // Manifest format version
+    static final int MANIFEST_SIZE = 40;             // Fixed manifest length
+    static final long MIN_VOLUME_SIZE = 64 << 10;    // Smallest volume accepted
+
+    private final Path Manifest;                     // The pack name itself
+    private final long Generation;                   // Names the volume files
+    private final long VolumeSize;                   // Bytes per volume but the last
+    private final boolean bWrite;                    // Created by Create
+    private final List<FileChannel> Volumes = new ArrayList<>();  // Opened so far
+    private final AtomicLong Size;                   // End of the pack
+    private long Position = 0;                       // For relative reads and writes
+
+    private VolumeChannel(Path Manifest, long Generation, long VolumeSize, boolean bWrite, long Size)
+    {
+        this.Manifest = Manifest;
+        this.Generation = Generation;
+        this.VolumeSize = VolumeSize;
+        this.bWrite = bWrite;
+        this.Size = new AtomicLong(Size);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : Create
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] Path Manifest   -> Pack name; volumes go next
+    //                                            to it
+    //                    [IN] long VolumeSize -> Bytes per volume
+    //  Description     : Starts an empty volume set. Volumes are created
+    //                    (or truncated) when first written; the manifest
+    //                    is written by Finish.
+    //  Returns         : VolumeChannel
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static VolumeChannel Create(Path Manifest, long VolumeSize)
+    {
+        return new VolumeChannel(Manifest, 0, CheckVolumeSize(VolumeSize), true, 0);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : Open
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] Path PackPath -> Packed file or volume manifest
+    //  Description     : Opens a pack for reading. A manifest is replaced
+    //                    by its volume set, after checking that every
+    //                    volume is present with the expected length; any
+    //                    other file is returned as a plain channel.
+    //  Returns         : FileChannel
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static FileChannel Open(Path PackPath) throws IOException
+    {
+        FileChannel ch = FileChannel.open(PackPath, StandardOpenOption.READ);
+        ByteBuffer Fields;
+
+        try
+        {
+            Fields = ReadManifest(ch);
+        }
+        catch (IOException eobj)
+        {
+            ch.close();
+            throw eobj;
+        }
+
+        if (Fields == null)
+        {
+            return ch;
+        }
+
+        ch.close();
+
+        int iCount = Fields.getInt(12);
+        long VolumeSize = Fields.getLong(16);
+        long Total = Fields.getLong(24);
+        long Generation = Fields.getLong(32);
+
+        if (iCount < 1 || VolumeSize < MIN_VOLUME_SIZE || Generation < 0
+            || Total <= (iCount - 1) * VolumeSize || Total > iCount * VolumeSize)
+        {
+            throw new IOException("Corrupt volume manifest : " + PackPath);
+        }
+
+        VolumeChannel Set = new VolumeChannel(PackPath, Generation, VolumeSize, false, Total);
+
+        try
+        {
+            for (int i = 0; i < iCount; i++)
+            {
+                Path VolumePath = VolumePath(PackPath, Generation, i);
+
+                if (!Files.exists(VolumePath))
+                {
+                    throw new FileNotFoundException("Missing volume : " + VolumePath);
+                }
+
+                FileChannel Volume = FileChannel.open(VolumePath, StandardOpenOption.READ);
+                Set.Volumes.add(Volume);
+
+                if (Volume.size() != Math.min(VolumeSize, Total - i * VolumeSize))
+                {
+                    throw new IOException("Volume has the wrong length : " + VolumePath);
+                }
+            }
+        }
+        catch (IOException eobj)
+        {
+            Set.close();
+            throw eobj;
+        }
+
+        return Set;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : Finish
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : None
+    //  Description     : Called once every write is done. Writes the
+    //                    manifest and removes volumes left behind by an
+    //                    earlier, longer pack of the same name.
+    //  Returns         : int - Number of volumes
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    int Finish() throws IOException
+    {
+        long Total = Size.get();
+        int iCount = (int) Math.max(1, (Total + VolumeSize - 1) / VolumeSize);
+
+        // Every volume but the last is full; make sure the last exists
+        Volume(iCount - 1);
+
+        WriteManifest(Manifest, iCount, VolumeSize, Total, Generation);
+        DeleteVolumes(Manifest, Generation, iCount);
+
+        return iCount;
+    }
+
+    // Manifest fields, or null when ch is not a manifest
+    private static ByteBuffer ReadManifest(FileChannel ch) throws IOException
+    {
+        ByteBuffer Fields = ByteBuffer.allocate(MANIFEST_SIZE);
+
+        if (ch.size() != MANIFEST_SIZE || ChannelIO.ReadFully(ch, Fields, 0) != MANIFEST_SIZE
+            || Fields.getLong(0) != MAGIC)
+        {
+            return null;
+        }
+
+        int iVersion = Fields.getInt(8);
+
+        if (iVersion != VERSION)
+        {
+            throw new IOException("Unsupported volume manifest version " + iVersion);
+        }
+
+        return Fields.clear();
+    }
+
+    private static void WriteManifest(Path PackPath, int iCount, long VolumeSize, long Total, long Generation)
+        throws IOException
+    {
+        ByteBuffer Fields = ByteBuffer.allocate(MANIFEST_SIZE);
+        Fields.putLong(MAGIC).putInt(VERSION).putInt(iCount)
+              .putLong(VolumeSize).putLong(Total).putLong(Generation);
+
+        try (FileChannel ch = FileChannel.open(PackPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                               StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            ChannelIO.WriteFully(ch, Fields.flip(), 0);
+            ch.force(true);
+        }
+    }
+
+    // Generation of a pack's volumes, -1 when it is no volume manifest
+    private static long Generation(Path PackPath) throws IOException
+    {
+        if (!Files.isRegularFile(PackPath))
+        {
+            return -1;
+        }
+
+        try (FileChannel ch = FileChannel.open(PackPath, StandardOpenOption.READ))
+        {
+            ByteBuffer Fields = ReadManifest(ch);
+
+            return (Fields == null) ? -1 : Fields.getLong(32);
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : Move
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] Path From    -> Finished pack
+    //                    [IN] Path To      -> Name it replaces
+    //                    [IN] int iVolumes -> Volumes of From, 0 for a
+    //                                         single-file pack
+    //  Description     : Replaces To with From. The volumes of From are
+    //                    renamed to a generation of To that is not in use,
+    //                    and From's manifest is rewritten to name it.
+    //                    Renaming that manifest (or single file) over To
+    //                    is the one step that switches packs: a crash
+    //                    before it leaves the old pack whole, a crash after
+    //                    it the new one. Only then are the old volumes
+    //                    deleted.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static void Move(Path From, Path To, int iVolumes) throws IOException
+    {
+        long Old = Generation(To);
+
+        if (iVolumes > 0)
+        {
+            long New = Old + 1;     // 0 when To has no volumes
+            ByteBuffer Fields;
+
+            try (FileChannel ch = FileChannel.open(From, StandardOpenOption.READ))
+            {
+                Fields = ReadManifest(ch);
+            }
+
+            if (Fields == null || Fields.getInt(12) != iVolumes)
+            {
+                throw new IOException("Not a finished volume set : " + From);
+            }
+
+            long FromGeneration = Fields.getLong(32);
+
+            for (int i = 0; i < iVolumes; i++)
+            {
+                Files.move(VolumePath(From, FromGeneration, i), VolumePath(To, New, i),
+                           StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+
+            // Leftovers of an interrupted earlier move to the same generation
+            DeleteVolumes(To, New, iVolumes);
+
+            WriteManifest(From, iVolumes, Fields.getLong(16), Fields.getLong(24), New);
+        }
+
+        Files.move(From, To, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        // The old volumes, and older ones an interrupted move left behind
+        for (long g = 0; g <= Old; g++)
+        {
+            DeleteVolumes(To, g, 0);
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////
+    //
+    //  Function Name   : Delete
+    //  Function Date   : 16/09/2025
+    //  Function Author : Rutik Shivaji Thitame
+    //  Parameters      : [IN] Path PackPath -> Pack to remove
+    //  Description     : Deletes a pack together with any volumes.
+    //  Returns         : void
+    //
+    /////////////////////////////////////////////////////////////////////////////
+    static void Delete(Path PackPath) throws IOException
+    {
+        long Generation = Math.max(Generation(PackPath), 0);
+
+        for (long g = 0; g <= Generation; g++)
+        {
+            DeleteVolumes(PackPath, g, 0);
+        }
+
+        Files.deleteIfExists(PackPath);
+    }
+
+    // Volumes of a generation from number iFirst (0-based) on, up to the
+    // first missing one
+    private static void DeleteVolumes(Path PackPath, long Generation, int iFirst) throws IOException
+    {
+        for (int i = iFirst; Files.deleteIfExists(VolumePath(PackPath, Generation, i)); i++)
+        {
+        }
+    }
+
+    static Path VolumePath(Path PackPath, long Generation, int iVolume)
+    {
+        String Suffix = (Generation == 0) ? String.format(".%03d", iVolume + 1)
+                                          : String.format(".g%d.%03d", Generation, iVolume + 1);
+
+        return PackPath.resolveSibling(PackPath.getFileName() + Suffix);
+    }
+
+    // Bytes per volume but the last
+    long GetVolumeSize()
+    {
+        return VolumeSize;
+    }
+
+    static long CheckVolumeSize(long size)
+    {
+        if (size < MIN_VOLUME_SIZE)
+        {
+            throw new IllegalArgumentException("Invalid volume size : " + size);
+        }
+
+        return size;
+    }
+
+    // Opens (when writing, creates) volumes up to number i
+    private FileChannel Volume(int i) throws IOException
+    {
+        synchronized (Volumes)
+        {
+            while (Volumes.size() <= i)
+            {
+                if (!bWrite)
+                {
+                    throw new EOFException("No volume " + (i + 1) + " : " + Manifest);
+                }
+
+                Volumes.add(FileChannel.open(VolumePath(Manifest, Generation, Volumes.size()),
+                        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING));
+            }
+
+            return Volumes.get(i);
+        }
+    }
+
+    // Bytes of the volume holding Offset from Offset to its end
+    private long Room(long Offset)
+    {
+        return VolumeSize - Offset % VolumeSize;
+    }
+
+    @Override
+    public int read(ByteBuffer dst, long position) throws IOException
+    {
+        if (position >= Size.get())
+        {
+            return dst.hasRemaining() ? -1 : 0;
+        }
+
+        int iTotal = 0;
+        int iLimit = dst.limit();
+
+        try
+        {
+            while (dst.hasRemaining() && position < Size.get())
+            {
+                long Span = Math.min(Room(position), Size.get() - position);
+
+                if (dst.remaining() > Span)
+                {
+                    dst.limit(dst.position() + (int) Span);
+                }
+
+                int iRet = Volume((int) (position / VolumeSize)).read(dst, position % VolumeSize);
+                dst.limit(iLimit);
+
+                if (iRet <= 0)
+                {
+                    break;
+                }
+
+                iTotal += iRet;
+                position += iRet;
+            }
+        }
+        finally
+        {
+            dst.limit(iLimit);
+        }
+
+        return iTotal;
+    }
+
+    @Override
+    public int write(ByteBuffer src, long position) throws IOException
+    {
+        int iTotal = 0;
+        int iLimit = src.limit();
+
+        try
+        {
+            while (src.hasRemaining())
+            {
+                if (src.remaining() > Room(position))
+                {
+                    src.limit(src.position() + (int) Room(position));
+                }
+
+                int iRet = Volume((int) (position / VolumeSize)).write(src, position % VolumeSize);
+                src.limit(iLimit);
+
+                iTotal += iRet;
+                position += iRet;
+            }
+        }
+        finally
+        {
+            src.limit(iLimit);
+        }
+
+        Grown(position);
+        return iTotal;
+    }
+
+    private void Grown(long End)
+    {
+        Size.accumulateAndGet(End, Math::max);
+    }
+
+    @Override
+    public synchronized int read(ByteBuffer dst) throws IOException
+    {
+        int iRet = read(dst, Position);
+
+        if (iRet > 0)
+        {
+            Position += iRet;
+        }
+
+        return iRet;
+    }
+
+    @Override
+    public synchronized long read(ByteBuffer dsts[], int offset, int length) throws IOException
+    {
+        long Total = 0;
+
+        for (int i = offset; i < offset + length; i++)
+        {
+            if (!dsts[i].hasRemaining())
+            {
+                continue;
+            }
+
+            int iRet = read(dsts[i]);
+
+            if (iRet < 0)
+            {
+                return (Total == 0) ? -1 : Total;
+            }
+
+            Total += iRet;
+
+            if (dsts[i].hasRemaining())
+            {
+                break;
+            }
+        }
+
+        return Total;
+    }
+
+    @Override
+    public synchronized int write(ByteBuffer src) throws IOException
+    {
+        int iRet = write(src, Position);
+        Position += iRet;
+        return iRet;
+    }
+
+    // Gathering writes that stay within one volume remain one writev
+    @Override
+    public synchronized long write(ByteBuffer srcs[], int offset, int length) throws IOException
+    {
+        long Total = 0;
+
+        for (int i = offset; i < offset + length; i++)
+        {
+            Total += srcs[i].remaining();
+        }
+
+        if (Total <= Room(Position))
+        {
+            FileChannel Volume = Volume((int) (Position / VolumeSize));
+            long Done = 0;
+
+            Volume.position(Position % VolumeSize);
+
+            while (Done < Total)
+            {
+                Done += Volume.write(srcs, offset, length);
+            }
+
+            Position += Total;
+            Grown(Position);
+            return Total;
+        }
+
+        for (int i = offset; i < offset + length; i++)
+        {
+            write(srcs[i]);
+        }
+
+        return Total;
+    }
+
+    @Override
+    public synchronized long position()
+    {
+        return Position;
+    }
+
+    @Override
+    public synchronized FileChannel position(long newPosition)
+    {
+        if (newPosition < 0)
+        {
+            throw new IllegalArgumentException("Negative position : " + newPosition);
+        }
+
+        Position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size()
+    {
+        return Size.get();
+    }
+
+    @Override
+    public FileChannel truncate(long size) throws IOException
+    {
+        throw new IOException("Volume sets cannot be truncated : " + Manifest);
+    }
+
+    @Override
+    public void force(boolean metaData) throws IOException
+    {
+        synchronized (Volumes)
+        {
+            for (FileChannel Volume : Volumes)
+            {
+                Volume.force(metaData);
+            }
+        }
+    }
+
+    @Override
+    public long transferTo(long position, long count, WritableByteChannel target) throws IOException
+    {
+        long Total = 0;
+
+        while (count > 0 && position < Size.get())
+        {
+            long Span = Math.min(Math.min(count, Room(position)), Size.get() - position);
+            long n = Volume((int) (position / VolumeSize)).transferTo(position % VolumeSize, Span, target);
+
+            if (n <= 0)
+            {
+                break;
+            }
+
+            Total += n;
+            position += n;
+            count -= n;
+        }
+
+        return Total;
+    }
+
+    @Override
+    public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException
+    {
+        long Total = 0;
+
+        while (count > 0)
+        {
+            long Span = Math.min(count, Room(position));
+            long n = Volume((int) (position / VolumeSize)).transferFrom(src, position % VolumeSize, Span);
+
+            if (n <= 0)
+            {
+                break;
+            }
+
+            Total += n;
+            position += n;
+            count -= n;
+        }
+
+        Grown(position);
+        return Total;
+    }
+
+    // Only within one volume; callers fall back to the channel path
+    @Override
+    public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException
+    {
+        if (size > 0 && size > Room(position))
+        {
+            throw new IOException("Mapping spans volumes : " + Manifest);
+        }
+
+        MappedByteBuffer Buffer = Volume((int) (position / VolumeSize)).map(mode, position % VolumeSize, size);
+
+        if (mode == MapMode.READ_WRITE)
+        {
+            Grown(position + size);
+        }
+
+        return Buffer;
+    }
+
+    @Override
+    public FileLock lock(long position, long size, boolean shared) throws IOException
+    {
+        throw new IOException("Volume sets cannot be locked : " + Manifest);
+    }
+
+    @Override
+    public FileLock tryLock(long position, long size, boolean shared) throws IOException
+    {
+        throw new IOException("Volume sets cannot be locked : " + Manifest);
+    }
+
+    @Override
+    protected void implCloseChannel() throws IOException
+    {
+        IOException Failure = null;
+
+        synchronized (Volumes)
+        {
+            for (FileChannel Volume : Volumes)
+            {
+                try
+                {
+                    Volume.close();
+                }
+                catch (IOException eobj)
+                {
+                    Failure = eobj;
+                }
+            }
+        }
+
+        if (Failure != null)
+        {
+            throw Failure;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package MarvellousPackerUnpacker.benchmarks;
+
+import MarvellousPackerUnpacker.AESEncryption;
+import MarvellousPackerUnpacker.BlowfishEncryption;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/////////////////////////////////////////////////////////////////////////////
+//
+//  Class Name      : CipherBenchmark
+//  Description     : Blowfish throughput, both per 8 byte block and per
+//                    megabyte through the bulk ECB and CTR entry points,
+//                    against AES-CTR through javax.crypto.
+//
+/////////////////////////////////////////////////////////////////////////////
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CipherBenchmark
+{
+    private static final int MB = 1024 * 1024;
+
+    @Param({"1048576"})
+    public int Length;
+
+    private BlowfishEncryption cipher;
+    private AESEncryption aes;
+    private byte[] Data;
+    private int L;
+    private int R;
+
+    @Setup
+    public void Setup()
+    {
+        cipher = new BlowfishEncryption(11, 21);
+        aes = new AESEncryption(11, 21);
+        Data = new byte[Length];
+        new Random(42).nextBytes(Data);
+        L = 0x01234567;
+        R = 0x89ABCDEF;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int[] EncryptBlock()
+    {
+        return cipher.EncryptBlock(L, R);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int[] DecryptBlock()
+    {
+        return cipher.DecryptBlock(L, R);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public byte[] EncryptData()
+    {
+        return cipher.EncryptData(Data);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public byte[] EncryptBlocks()
+    {
+        cipher.EncryptBlocks(Data, 0, Length);
+        return Data;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public byte[] DecryptBlocks()
+    {
+        cipher.DecryptBlocks(Data, 0, Length);
+        return Data;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public byte[] CryptCounter()
+    {
+        cipher.CryptCounter(Data, 0, Length, 0x5DEECE66DL, 0);
+        return Data;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public byte[] AesCounter()
+    {
+        aes.CryptCounter(Data, 0, Length, 0x5DEECE66DL, 0);
+        return Data;
+    }
+}
@@ -0,0 +1,167 @@
+package MarvellousPackerUnpacker.benchmarks;
+
+import MarvellousPackerUnpacker.MarvellousPacker;
+import MarvellousPackerUnpacker.MarvellousUnpacker;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/////////////////////////////////////////////////////////////////////////////
+//
+//  Class Name      : PackBenchmark
+//  Description     : End to end pack and unpack over a synthetic corpus
+//                    generated once per trial:
+//                      TINY  - 2000 files of 64 bytes to 4 KB
+//                      HUGE  - 2 files of 128 MB
+//                      MIXED - 500 files from 64 bytes to 2 MB
+//
+/////////////////////////////////////////////////////////////////////////////
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class PackBenchmark
+{
+    private static final int KEY1 = 11;
+    private static final int KEY2 = 21;
+
+    @Param({"TINY", "HUGE", "MIXED"})
+    public String Corpus;
+
+    @Param({"1"})
+    public int Parallelism;
+
+    @Param({"0", "1"})                   // PackCipher.ALGORITHM_BLOWFISH, _AES
+    public int Algorithm;
+
+    private Path Root;
+    private Path Source;
+    private Path Packed;
+    private Path PackOut;
+    private Path UnpackOut;
+
+    @Setup(Level.Trial)
+    public void CreateCorpus() throws IOException
+    {
+        Root = Files.createTempDirectory("mvpack-bench");
+        Source = Files.createDirectory(Root.resolve("src"));
+        Packed = Root.resolve("corpus.pack");
+        PackOut = Root.resolve("out.pack");
+        UnpackOut = Root.resolve("restore");
+
+        Random Rand = new Random(42);
+
+        switch (Corpus)
+        {
+            case "TINY":
+                Generate(Rand, 2000, 64, 4 * 1024);
+                break;
+            case "HUGE":
+                Generate(Rand, 2, 128 * 1024 * 1024, 128 * 1024 * 1024);
+                break;
+            case "MIXED":
+                Generate(Rand, 500, 64, 2 * 1024 * 1024);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown corpus: " + Corpus);
+        }
+
+        MarvellousPacker pobj = NewPacker(Packed);
+        if (pobj.PackingActivity() <= 0)
+        {
+            throw new IOException("Failed to pack the benchmark corpus");
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void Clean() throws IOException
+    {
+        Files.deleteIfExists(PackOut);
+        Delete(UnpackOut);
+    }
+
+    @TearDown(Level.Trial)
+    public void DeleteCorpus() throws IOException
+    {
+        Delete(Root);
+    }
+
+    @Benchmark
+    public int Pack()
+    {
+        return NewPacker(PackOut).PackingActivity();
+    }
+
+    @Benchmark
+    public int Unpack()
+    {
+        MarvellousUnpacker uobj = new MarvellousUnpacker(Packed.toString(), KEY1, KEY2);
+        uobj.SetParallelism(Parallelism);
+        uobj.SetOutputDirectory(UnpackOut.toString());
+        return uobj.UnpakingActivity();
+    }
+
+    private MarvellousPacker NewPacker(Path Target)
+    {
+        MarvellousPacker pobj = new MarvellousPacker(Source.toString(), Target.toString(), KEY1, KEY2);
+        pobj.SetParallelism(Parallelism);
+        pobj.SetAlgorithm(Algorithm);
+        return pobj;
+    }
+
+    private void Generate(Random Rand, int Count, int MinSize, int MaxSize) throws IOException
+    {
+        byte[] Buffer = new byte[1024 * 1024];
+        Rand.nextBytes(Buffer);
+
+        for (int i = 0; i < Count; i++)
+        {
+            int Size = MinSize + (MaxSize > MinSize ? Rand.nextInt(MaxSize - MinSize + 1) : 0);
+
+            try (var out = Files.newOutputStream(Source.resolve("file" + i + ".bin")))
+            {
+                int Remaining = Size;
+                while (Remaining > 0)
+                {
+                    int n = Math.min(Remaining, Buffer.length);
+                    out.write(Buffer, Rand.nextInt(Buffer.length - n + 1), n);
+                    Remaining -= n;
+                }
+            }
+        }
+    }
+
+    private static void Delete(Path Dir) throws IOException
+    {
+        if (!Files.exists(Dir))
+        {
+            return;
+        }
+
+        try (Stream<Path> Walk = Files.walk(Dir))
+        {
+            Walk.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package MarvellousPackerUnpacker;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/////////////////////////////////////////////////////////////////////////
+//
+//  Class :         PackIndexTest
+//  Description :   The central directory stores names as UTF-8, like
+//                  the headers, so every name a header accepts also
+//                  fits the directory.
+//  Author :        Rutik Shivaji Thitame
+//
+/////////////////////////////////////////////////////////////////////////
+
+public class PackIndexTest
+{
+    @TempDir
+    Path Dir;
+
+    @Test
+    public void LongNonBmpNameRoundTrips() throws Exception
+    {
+        // 64000 UTF-8 bytes, but 96000 in the modified UTF-8 of writeUTF
+        String Name = "😀".repeat(16000);
+        Path PackFile = Dir.resolve("names.pack");
+
+        try (OutputStream Out = Files.newOutputStream(PackFile);
+             PackerOutputStream Pack = new PackerOutputStream(Out, 11, 22))
+        {
+            Pack.SetWriteIndex(true);
+            Pack.PutNextEntry(Name, 3);
+            Pack.write("abc".getBytes());
+        }
+
+        try (FileChannel ch = FileChannel.open(PackFile, StandardOpenOption.READ))
+        {
+            PackIndex Index = PackIndex.Read(ch);
+
+            assertEquals(1, Index.Entries.size());
+            assertEquals(Name, Index.Entries.get(0).Name);
+            assertEquals(3L, Index.Find(Name).Size);
+        }
+    }
+
+    @Test
+    public void OverlongNameIsRejectedWhenAdded() throws Exception
+    {
+        Path PackFile = Dir.resolve("long.pack");
+
+        try (OutputStream Out = Files.newOutputStream(PackFile);
+             PackerOutputStream Pack = new PackerOutputStream(Out, 11, 22))
+        {
+            Pack.SetWriteIndex(true);
+            assertThrows(IOException.class, () -> Pack.PutNextEntry("n".repeat(PackFormat.MAX_NAME_BYTES + 1), 0));
+        }
+
+        // Nothing of the rejected entry was written; the pack still closes with its directory
+        try (FileChannel ch = FileChannel.open(PackFile, StandardOpenOption.READ))
+        {
+            assertEquals(0, PackIndex.Read(ch).Entries.size());
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package MarvellousPackerUnpacker;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.OutputStream;
+import java.nio.file.*;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/////////////////////////////////////////////////////////////////////////
+//
+//  Class :         UnpackParallelTest
+//  Description :   A name packed twice unpacks to its last entry, also
+//                  when entries are restored on several threads.
+//  Author :        Rutik Shivaji Thitame
+//
+/////////////////////////////////////////////////////////////////////////
+
+public class UnpackParallelTest
+{
+    @TempDir
+    Path Dir;
+
+    // Contents of the given size, every byte set to Fill
+    private static byte[] Contents(long Size, char Fill)
+    {
+        byte Data[] = new byte[(int) Size];
+
+        Arrays.fill(Data, (byte) Fill);
+
+        return Data;
+    }
+
+    @Test
+    public void DuplicateNameUnpacksLastEntry() throws Exception
+    {
+        // The older copy spans more segments than the newer one
+        byte Older[] = Contents(3 * PackFormat.SEGMENT_SIZE - 5, 'A');
+        byte Newer[] = Contents(2 * PackFormat.SEGMENT_SIZE + 3, 'B');
+
+        Path PackFile = Dir.resolve("dup.pack");
+
+        try (OutputStream Out = Files.newOutputStream(PackFile);
+             PackerOutputStream Pack = new PackerOutputStream(Out, 11, 22))
+        {
+            Pack.PutNextEntry("big.bin", Older.length);
+            Pack.write(Older);
+            Pack.PutNextEntry("small.txt", 5);
+            Pack.write("first".getBytes());
+            Pack.PutNextEntry("big.bin", Newer.length);
+            Pack.write(Newer);
+            Pack.PutNextEntry("small.txt", 6);
+            Pack.write("second".getBytes());
+        }
+
+        Path Output = Dir.resolve("out");
+        MarvellousUnpacker muobj = new MarvellousUnpacker(PackFile.toString(), 11, 22);
+
+        muobj.SetOutputDirectory(Output.toString());
+        muobj.SetParallelism(4);
+
+        assertEquals(2, muobj.UnpakingActivity());
+        assertArrayEquals(Newer, Files.readAllBytes(Output.resolve("big.bin")));
+        assertEquals("second", Files.readString(Output.resolve("small.txt")));
+    }
+}
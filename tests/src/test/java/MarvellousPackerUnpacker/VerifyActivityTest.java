@@ -0,0 +1,60 @@
+package MarvellousPackerUnpacker;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/////////////////////////////////////////////////////////////////////////
+//
+//  Class :         VerifyActivityTest
+//  Description :   MarvellousUnpacker.VerifyActivity counts only entries
+//                  checked against a CRC32C, so wrong keys cannot pass
+//                  as a successful verify.
+//  Author :        Rutik Shivaji Thitame
+//
+/////////////////////////////////////////////////////////////////////////
+
+public class VerifyActivityTest
+{
+    @TempDir
+    Path Dir;
+
+    // Packs three small text files with the keys 11, 22
+    private String Pack(boolean bLegacy) throws Exception
+    {
+        Path Source = Files.createDirectories(Dir.resolve("source"));
+
+        for (int i = 0; i < 3; i++)
+        {
+            Files.writeString(Source.resolve("file" + i + ".txt"), ("line of file " + i + "\n").repeat(500));
+        }
+
+        String PackName = Dir.resolve(bLegacy ? "legacy.pack" : "binary.pack").toString();
+        MarvellousPacker mpobj = new MarvellousPacker(Source.toString(), PackName, 11, 22);
+
+        mpobj.SetLegacyHeader(bLegacy);
+        assertEquals(3, mpobj.PackingActivity());
+
+        return PackName;
+    }
+
+    @Test
+    public void LegacyPackWithoutDirectoryCannotBeVerified() throws Exception
+    {
+        String PackName = Pack(true);
+
+        assertEquals(-6, new MarvellousUnpacker(PackName, 7, 8).VerifyActivity());
+        assertEquals(-6, new MarvellousUnpacker(PackName, 11, 22).VerifyActivity());
+    }
+
+    @Test
+    public void BinaryPackFailsUnderWrongKeys() throws Exception
+    {
+        String PackName = Pack(false);
+
+        assertEquals(-5, new MarvellousUnpacker(PackName, 7, 8).VerifyActivity());
+        assertEquals(3, new MarvellousUnpacker(PackName, 11, 22).VerifyActivity());
+    }
+}